@@ -0,0 +1,95 @@
+package benchmarks;
+
+import generator.GraphGenerator;
+import metrics.CompactGraph;
+import metrics.EdgeListReader;
+import metrics.GraphSnapshot;
+import org.gephi.graph.api.GraphController;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.api.Workspace;
+import org.openide.util.Lookup;
+
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Input graphs of the benchmarks, by name:
+ * "ba_<size>" and "ws_<size>" are generated by GraphGenerator from a fixed seed, so every fork benchmarks exactly
+ * the same graph, and any other name is a real-world graph read from the resources.
+ */
+class BenchmarkGraphs {
+    static final long SEED = 42;
+
+    // Every graph the real-world benchmarks are run on, as in Main
+    static final String FACEBOOK_1400 = "socfb-Haverford76";
+    static final String FACEBOOK_2600 = "socfb-Trinity100";
+    static final String FACEBOOK_2900 = "ego-facebook";
+    static final String FACEBOOK_4000 = "facebook_combined";
+
+    private static final Map<String, GraphSnapshot> graphs = new ConcurrentHashMap<>();
+    private static final Object projectLock = new Object();
+
+    /**
+     * @return the snapshot of the named graph, generated or read once per fork
+     */
+    static GraphSnapshot get(String graph) {
+        return graphs.computeIfAbsent(graph, BenchmarkGraphs::create);
+    }
+
+    private static GraphSnapshot create(String graph) {
+        if (graph.startsWith("ba_")) {
+            return GraphGenerator.generateBA(Integer.parseInt(graph.substring(3)), SEED);
+        } else if (graph.startsWith("ws_")) {
+            return GraphGenerator.generateWS(Integer.parseInt(graph.substring(3)), SEED);
+        }
+
+        try {
+            URL resource = BenchmarkGraphs.class.getResource(getFilePath(graph));
+            if (resource == null) throw new IllegalArgumentException("Unknown graph: " + graph);
+
+            return EdgeListReader.read(Paths.get(resource.toURI()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Graph couldn't be read: " + graph, e);
+        }
+    }
+
+    /**
+     * @return the path that names the graph in the output of a strategy, the generated graphs have no file
+     */
+    static String getFilePath(String graph) {
+        if (graph.startsWith("ba_") || graph.startsWith("ws_")) {
+            return "/graph/benchmark/" + graph + ".graphml";
+        }
+
+        return "/graph/real-world/" + graph + ".txt";
+    }
+
+    /**
+     * @return a new empty workspace, in the project shared by every benchmark of the fork
+     */
+    static Workspace newWorkspace() {
+        ProjectController pc = Lookup.getDefault().lookup(ProjectController.class);
+
+        synchronized (projectLock) {
+            if (pc.getCurrentProject() == null) pc.newProject();
+            return pc.newWorkspace(pc.getCurrentProject());
+        }
+    }
+
+    static void deleteWorkspace(Workspace workspace) {
+        ProjectController pc = Lookup.getDefault().lookup(ProjectController.class);
+
+        synchronized (projectLock) {
+            pc.deleteWorkspace(workspace);
+        }
+    }
+
+    /**
+     * @return the CompactGraph of the named graph, loaded into the workspace
+     */
+    static CompactGraph load(String graph, Workspace workspace) {
+        return get(graph).load(Lookup.getDefault().lookup(GraphController.class).getGraphModel(workspace));
+    }
+}
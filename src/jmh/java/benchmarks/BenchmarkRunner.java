@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Run the benchmarks with the GC profiler, which reports the allocation per operation (gc.alloc.rate.norm) next
+ * to the time, and write the results to ./results/benchmarks.csv
+ *
+ * The benchmarks matching the first argument are run, e.g. "StrategyBenchmark" or "MetricBenchmark.betweenness",
+ * or every benchmark without arguments. To narrow the parameters, run org.openjdk.jmh.Main with the usual JMH
+ * options instead, e.g. StrategyBenchmark -p graph=ba_1000 -p updateEveryRound=true -prof gc
+ *
+ * The benchmarks are in their own module (src/jmh/jmh.iml), which needs the project library "jmh" with jmh-core
+ * and jmh-generator-annprocess, and annotation processing enabled to generate the benchmark classes.
+ */
+public class BenchmarkRunner {
+    private static final String RESULT_FILE = "./results/benchmarks.csv";
+
+    public static void main(String[] args) throws RunnerException {
+        new File(RESULT_FILE).getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "benchmarks\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(RESULT_FILE)
+                .build();
+
+        new Runner(options).run();
+    }
+}
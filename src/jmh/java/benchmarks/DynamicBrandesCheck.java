@@ -0,0 +1,92 @@
+package benchmarks;
+
+import metrics.CompactGraph;
+import metrics.DynamicBrandes;
+import metrics.GraphMetrics;
+import metrics.MetricEngine;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.Workspace;
+import org.openide.util.Lookup;
+
+import java.util.Random;
+
+/**
+ * Check that the metrics DynamicBrandes keeps up to date are exactly those of a full MetricEngine pass, on the
+ * generated graphs of the benchmarks. A newcomer is added to every graph and connected to random nodes, and the
+ * metrics are compared bit for bit after every edge, so that the exported values and the targets selected from
+ * ties are the same whichever of the two computed them.
+ *
+ * Exits with status 1 at the first metric that differs.
+ */
+public class DynamicBrandesCheck {
+    private static final String[] GRAPHS = {"ba_100", "ba_250", "ba_1000", "ws_100", "ws_250", "ws_1000"};
+    private static final int EDGES = 10;
+
+    public static void main(String[] args) {
+        for (String graph : args.length > 0 ? args : GRAPHS) {
+            if (!check(graph)) {
+                System.exit(1);
+            }
+            System.out.println("Incremental metrics equal to a full pass: " + graph);
+        }
+    }
+
+    private static boolean check(String graph) {
+        Workspace workspace = BenchmarkGraphs.newWorkspace();
+
+        try {
+            GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel(workspace);
+            CompactGraph compactGraph = BenchmarkGraphs.load(graph, workspace);
+            int baseCount = compactGraph.getNodeCount();
+
+            DynamicBrandes dynamicBrandes = new DynamicBrandes(compactGraph);
+            MetricEngine metricEngine = new MetricEngine();
+            if (!compare(graph, 0, dynamicBrandes.getMetrics(), metricEngine.compute(compactGraph))) return false;
+
+            Node newcomer = graphModel.factory().newNode("Newcomer");
+            graphModel.getUndirectedGraph().addNode(newcomer);
+            int u = compactGraph.addNode(newcomer);
+
+            Random random = new Random(BenchmarkGraphs.SEED);
+            for (int edge = 1; edge <= EDGES; edge++) {
+                int v = random.nextInt(baseCount);
+                if (compactGraph.addEdge(u, v)) dynamicBrandes.edgeAdded(u, v);
+
+                if (!compare(graph, edge, dynamicBrandes.getMetrics(), metricEngine.compute(compactGraph))) {
+                    return false;
+                }
+            }
+
+            return true;
+        } finally {
+            BenchmarkGraphs.deleteWorkspace(workspace);
+        }
+    }
+
+    private static boolean compare(String graph, int edge, GraphMetrics incremental, GraphMetrics full) {
+        String difference = null;
+
+        for (int id = 0; id < full.getNodeCount() && difference == null; id++) {
+            if (Double.compare(incremental.getBetweenness(id), full.getBetweenness(id)) != 0) {
+                difference = "betweenness of node " + id;
+            } else if (Double.compare(incremental.getCloseness(id), full.getCloseness(id)) != 0) {
+                difference = "closeness of node " + id;
+            } else if (Double.compare(incremental.getEccentricity(id), full.getEccentricity(id)) != 0) {
+                difference = "eccentricity of node " + id;
+            }
+        }
+
+        if (difference == null && (Double.compare(incremental.getPathLength(), full.getPathLength()) != 0 ||
+                incremental.getDiameter() != full.getDiameter() || incremental.getRadius() != full.getRadius())) {
+            difference = "average path length, diameter or radius";
+        }
+
+        if (difference != null) {
+            System.out.println("Incremental " + difference + " differs from a full pass: " + graph + " after " +
+                    edge + " edges");
+        }
+        return difference == null;
+    }
+}
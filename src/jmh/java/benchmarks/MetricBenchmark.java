@@ -0,0 +1,87 @@
+package benchmarks;
+
+import metrics.CompactGraph;
+import metrics.GraphMetrics;
+import metrics.LouvainHierarchy;
+import metrics.Metric;
+import metrics.MetricEngine;
+import metrics.MetricPlanner;
+import org.gephi.project.api.Workspace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full computation of the metrics, as done by Strategy.updateCentralities when the centralities aren't maintained
+ * between rounds, for each plan that a strategy or the export asks for, and of the communities found by Community.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricBenchmark {
+    @Param({"ba_250", "ba_1000", "ba_2000", "ba_4000", "ws_250", "ws_1000", "ws_2000", "ws_4000",
+            BenchmarkGraphs.FACEBOOK_1400, BenchmarkGraphs.FACEBOOK_2600,
+            BenchmarkGraphs.FACEBOOK_2900, BenchmarkGraphs.FACEBOOK_4000})
+    public String graph;
+
+    // Communities needed by Community, one more than the edge limit
+    @Param({"11"})
+    public int communities;
+
+    private final MetricEngine engine = new MetricEngine();
+    private Workspace workspace;
+    private CompactGraph compactGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workspace = BenchmarkGraphs.newWorkspace();
+        compactGraph = BenchmarkGraphs.load(graph, workspace);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkGraphs.deleteWorkspace(workspace);
+    }
+
+    @Benchmark
+    public GraphMetrics allMetrics() {
+        return engine.compute(compactGraph, MetricPlanner.all());
+    }
+
+    @Benchmark
+    public GraphMetrics betweenness() {
+        return engine.compute(compactGraph, new MetricPlanner(EnumSet.of(Metric.BETWEENNESS)));
+    }
+
+    @Benchmark
+    public GraphMetrics distances() {
+        return engine.compute(compactGraph,
+                new MetricPlanner(EnumSet.of(Metric.PATH_LENGTH, Metric.DIAMETER, Metric.RADIUS)));
+    }
+
+    @Benchmark
+    public GraphMetrics eigenvector() {
+        return engine.compute(compactGraph, new MetricPlanner(EnumSet.of(Metric.EIGENVECTOR)));
+    }
+
+    @Benchmark
+    public int[] nativeCommunities() {
+        return new LouvainHierarchy(compactGraph).getPartition(communities, -1);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import metrics.CompactGraph;
+import metrics.GraphMetrics;
+import metrics.MetricEngine;
+import metrics.NewcomerCentralities;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.Workspace;
+import org.openide.util.Lookup;
+
+import java.util.Random;
+
+/**
+ * Check that the newcomer's centralities NewcomerCentralities computes are those of a full MetricEngine pass, on
+ * the generated graphs of the benchmarks. A newcomer is added to every graph and connected to random nodes, and the
+ * centralities are compared after every edge. Closeness and eccentricity must be equal, betweenness is summed over
+ * pairs rather than over sources and must only be equal up to rounding.
+ *
+ * Exits with status 1 at the first centrality that differs.
+ */
+public class NewcomerCentralitiesCheck {
+    private static final String[] GRAPHS = {"ba_100", "ba_250", "ba_1000", "ws_100", "ws_250", "ws_1000"};
+    private static final int EDGES = 10;
+    private static final double BETWEENNESS_TOLERANCE = 1e-12;     // Relative to the betweenness of a full pass
+
+    public static void main(String[] args) {
+        for (String graph : args.length > 0 ? args : GRAPHS) {
+            if (!check(graph)) {
+                System.exit(1);
+            }
+            System.out.println("Newcomer centralities equal to a full pass: " + graph);
+        }
+    }
+
+    private static boolean check(String graph) {
+        Workspace workspace = BenchmarkGraphs.newWorkspace();
+
+        try {
+            GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel(workspace);
+            CompactGraph compactGraph = BenchmarkGraphs.load(graph, workspace);
+            int baseCount = compactGraph.getNodeCount();
+
+            NewcomerCentralities newcomerCentralities = new NewcomerCentralities(compactGraph);
+            MetricEngine metricEngine = new MetricEngine();
+
+            Node newcomer = graphModel.factory().newNode("Newcomer");
+            graphModel.getUndirectedGraph().addNode(newcomer);
+            int u = compactGraph.addNode(newcomer);
+
+            Random random = new Random(BenchmarkGraphs.SEED);
+            for (int edge = 1; edge <= EDGES; edge++) {
+                compactGraph.addEdge(u, random.nextInt(baseCount));
+
+                newcomerCentralities.compute(u);
+                if (!compare(graph, edge, newcomerCentralities, metricEngine.compute(compactGraph), u)) {
+                    return false;
+                }
+            }
+
+            return true;
+        } finally {
+            BenchmarkGraphs.deleteWorkspace(workspace);
+        }
+    }
+
+    private static boolean compare(String graph, int edge, NewcomerCentralities newcomer, GraphMetrics full, int u) {
+        String difference = null;
+
+        double betweenness = full.getBetweenness(u);
+        if (Math.abs(newcomer.getBetweenness() - betweenness) > BETWEENNESS_TOLERANCE * Math.abs(betweenness)) {
+            difference = "betweenness";
+        } else if (Double.compare(newcomer.getCloseness(), full.getCloseness(u)) != 0) {
+            difference = "closeness";
+        } else if (Double.compare(newcomer.getEccentricity(), full.getEccentricity(u)) != 0) {
+            difference = "eccentricity";
+        }
+
+        if (difference != null) {
+            System.out.println("Newcomer " + difference + " differs from a full pass: " + graph + " after " +
+                    edge + " edges");
+        }
+        return difference == null;
+    }
+}
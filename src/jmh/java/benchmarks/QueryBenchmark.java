@@ -0,0 +1,96 @@
+package benchmarks;
+
+import metrics.BoundedBfs;
+import metrics.CompactGraph;
+import metrics.FarthestNodeService;
+import org.gephi.project.api.Workspace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The searches the strategies make while they execute: the neighbourhood of Global.getNeighborhood and the
+ * farthest node of BrokerExpress.getEndNode. The roots are visited in a fixed random order, so no search is
+ * answered from the result of the one before.
+ *
+ * Each benchmark has its own state, so the farthest node search isn't repeated for every depth of the neighbourhood.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryBenchmark {
+    private static final int ROOTS = 1024;
+
+    /**
+     * A graph loaded into its own workspace, with the searches on it and the roots to search from
+     */
+    @State(Scope.Thread)
+    public static class GraphState {
+        @Param({"ba_250", "ba_1000", "ba_2000", "ba_4000", "ws_250", "ws_1000", "ws_2000", "ws_4000",
+                BenchmarkGraphs.FACEBOOK_1400, BenchmarkGraphs.FACEBOOK_2600,
+                BenchmarkGraphs.FACEBOOK_2900, BenchmarkGraphs.FACEBOOK_4000})
+        public String graph;
+
+        private Workspace workspace;
+        CompactGraph compactGraph;
+        BoundedBfs boundedBfs;
+        FarthestNodeService farthestNodes;
+        private int[] roots;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            workspace = BenchmarkGraphs.newWorkspace();
+            compactGraph = BenchmarkGraphs.load(graph, workspace);
+            boundedBfs = new BoundedBfs(compactGraph);
+            farthestNodes = new FarthestNodeService(compactGraph);
+
+            Random random = new Random(BenchmarkGraphs.SEED);
+            roots = new int[ROOTS];
+            for (int i = 0; i < ROOTS; i++) {
+                roots[i] = random.nextInt(compactGraph.getNodeCount());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkGraphs.deleteWorkspace(workspace);
+        }
+
+        int nextRoot() {
+            next = (next + 1) % ROOTS;
+            return roots[next];
+        }
+    }
+
+    public static class NeighborhoodState extends GraphState {
+        // Depth of the neighbourhood, Global searches up to the radius minus one
+        @Param({"1", "2", "3"})
+        public int depth;
+    }
+
+    @Benchmark
+    public int neighborhood(NeighborhoodState state) {
+        return state.boundedBfs.search(state.nextRoot(), state.depth);
+    }
+
+    @Benchmark
+    public int farthestNode(GraphState state) {
+        return state.farthestNodes.getFarthest(state.nextRoot());
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import org.gephi.project.api.Workspace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import strategies.BrokerConnect;
+import strategies.BrokerExpress;
+import strategies.BrokerHybrid;
+import strategies.CentrePeriphery;
+import strategies.Community;
+import strategies.Global;
+import strategies.Local;
+import strategies.Random;
+import strategies.Strategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of every strategy, from the newcomer joining the graph to its last edge, with and without the
+ * centralities updated every round. Each execution starts from a freshly prepared graph, since it adds edges.
+ *
+ * Nothing is exported, so only the metrics that the strategy reads to select its targets are computed. The
+ * preparation runs outside of the measured time, but the GC profiler counts what it allocates too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StrategyBenchmark {
+    @Param({"brokerConnect", "brokerExpress", "brokerHybrid", "centrePeriphery", "community", "global", "local",
+            "random"})
+    public String strategy;
+
+    @Param({"ba_250", "ba_1000", "ba_2000", "ba_4000", "ws_250", "ws_1000", "ws_2000", "ws_4000",
+            BenchmarkGraphs.FACEBOOK_1400, BenchmarkGraphs.FACEBOOK_2600,
+            BenchmarkGraphs.FACEBOOK_2900, BenchmarkGraphs.FACEBOOK_4000})
+    public String graph;
+
+    @Param({"true", "false"})
+    public boolean updateEveryRound;
+
+    @Param({"10"})
+    public int edgeLimit;
+
+    private Workspace workspace;
+    private Strategy test;
+
+    @Setup(Level.Trial)
+    public void loadGraph() {
+        BenchmarkGraphs.get(graph);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        workspace = BenchmarkGraphs.newWorkspace();
+
+        test = createStrategy();
+        test.setGraph(BenchmarkGraphs.get(graph));
+        test.prepare(workspace);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        BenchmarkGraphs.deleteWorkspace(workspace);
+    }
+
+    @Benchmark
+    public void execute() {
+        test.run();
+    }
+
+    private Strategy createStrategy() {
+        String graphFilePath = BenchmarkGraphs.getFilePath(graph);
+
+        switch (strategy) {
+            case "brokerConnect":
+                return new BrokerConnect(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "brokerExpress":
+                return new BrokerExpress(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "brokerHybrid":
+                return new BrokerHybrid(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "centrePeriphery":
+                return new CentrePeriphery(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "community":
+                return new Community(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "global":
+                return new Global(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "local":
+                return new Local(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            case "random":
+                return new Random(graphFilePath, null, edgeLimit, updateEveryRound, false, false);
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+}
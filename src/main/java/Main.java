@@ -1,3 +1,6 @@
+import experiment.GridRunner;
+import experiment.ResultSink;
+import org.gephi.project.api.Workspace;
 import strategies.BrokerConnect;
 import strategies.BrokerExpress;
 import strategies.BrokerHybrid;
@@ -8,15 +11,8 @@ import strategies.Local;
 import strategies.Random;
 import strategies.Strategy;
 
-import java.io.BufferedOutputStream;
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
-import static java.nio.file.StandardOpenOption.CREATE;
+import java.util.Collections;
 
 public class Main {
     private static final String BROKER_CONNECT = "brokerConnect";
@@ -33,92 +29,173 @@ public class Main {
     private static final String WS_GRAPH = "watts-strogatz";
     private static final String[] ARTIFICIAL_GRAPH_TYPES = {BA_GRAPH, WS_GRAPH};
     private static final String[] GRAPH_SIZES = {"250", "500", "750", "1000", "1250", "1500", "1750", "2000"};
+    private static final String[] LARGE_GRAPH_SIZES = {"100000", "250000", "500000", "1000000"};
+    private static final int LARGE_VARIATIONS = 5;
 
     private static final String FACEBOOK_1400 = "socfb-Haverford76";
     private static final String FACEBOOK_2600 = "socfb-Trinity100";
     private static final String FACEBOOK_2900 = "ego-facebook";
     private static final String FACEBOOK_4000 = "facebook_combined";
     private static final String[] REAL_WORLD_GRAPHS = {FACEBOOK_1400, FACEBOOK_2600, FACEBOOK_2900, FACEBOOK_4000};
+    private static final int[] REAL_WORLD_SIZES = {1400, 2600, 2900, 4000};
+    private static final int VARIATIONS = 20;
 
     private static int edgeLimit = 10;
     private static boolean updateEveryRound = true; // Update centrality metrics every iteration when algorithm runs
     private static boolean visualise = false;
     private static boolean export = true;   // Export metrics to a file
+    private static int workers = Runtime.getRuntime().availableProcessors();    // Tests that run at the same time
+    private static long memory = Runtime.getRuntime().maxMemory() / 2;  // Heap shared by the tests that run at once
+    private static boolean graphOutermost = true;   // Start every strategy on a graph before moving to the next graph
+    private static boolean largeGraphs = false;     // Also time the strategies feasible on LargeGraphGenerator's graphs
 
     public static void main(String args[]) {
         runCompleteTest();
         // runSingleTest(BROKER_CONNECT, "/graph/barabasi-albert/ba_250_01.graphml", "./results/output.csv");   // Example
     }
 
-    private static void executeStrategy(String strategy, String graphFilePath, String outputFilePath) {
+    private static Strategy createStrategy(String strategy, String graphFilePath, String outputFilePath) {
+        return createStrategy(strategy, graphFilePath, outputFilePath, export);
+    }
+
+    private static Strategy createStrategy(String strategy, String graphFilePath, String outputFilePath,
+                                           boolean export) {
         switch (strategy) {
             case BROKER_CONNECT:
-                Strategy brokerConnect = new BrokerConnect(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                brokerConnect.start();
-                break;
+                return new BrokerConnect(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case BROKER_EXPRESS:
-                Strategy brokerExpress = new BrokerExpress(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                brokerExpress.start();
-                break;
+                return new BrokerExpress(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case BROKER_HYBRID:
-                Strategy brokerHybrid = new BrokerHybrid(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                brokerHybrid.start();
-                break;
+                return new BrokerHybrid(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case CENTRE_PERIPHERY:
-                Strategy centrePeriphery = new CentrePeriphery(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                centrePeriphery.start();
-                break;
+                return new CentrePeriphery(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case COMMUNITY:
-                Strategy community = new Community(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                community.start();
-                break;
+                return new Community(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case RANDOM:
-                Strategy random = new Random(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                random.start();
-                break;
+                return new Random(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case GLOBAL:
-                Strategy global = new Global(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                global.start();
-                break;
+                return new Global(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
             case LOCAL:
-                Strategy local = new Local(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
-                local.start();
-                break;
+                return new Local(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
         }
     }
 
     private static void runSingleTest(String strategy, String graphFilePath, String outputFilePath) {
-        File outputDir = new File(outputFilePath);
-        outputDir.getParentFile().mkdirs();     // Create parent directories if not already exist
+        prepareOutputFile(outputFilePath);
+        createStrategy(strategy, graphFilePath, outputFilePath).start();
+        ResultSink.closeAll();
+    }
+
+    /**
+     * Run a test in its own workspace, for tests that run at the same time as others
+     * @param slot: position of the test's row in the output file
+     * @param export: false to run without exporting metrics, which then only records the time of every phase
+     */
+    private static void runSingleTest(String strategy, String graphFilePath, String outputFilePath, Workspace workspace,
+                                      int slot, boolean export) {
+        prepareOutputFile(outputFilePath);
+
+        Strategy test = createStrategy(strategy, graphFilePath, outputFilePath, export);
+        test.setResultSlot(slot);
+
+        try {
+            test.start(workspace);
+        } finally {
+            // A run that failed, with an exception or an error, never commits its row, so the rows after it mustn't
+            // wait for it
+            if (!test.isResultCommitted()) {
+                try {
+                    ResultSink.get(outputFilePath).skip(slot);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the output file with its title, unless an earlier test of this run already did
+     */
+    private static void prepareOutputFile(String outputFilePath) {
         createCsvFile(getCsvTitle(), outputFilePath);
-        executeStrategy(strategy, graphFilePath, outputFilePath);
     }
 
+    /**
+     * Run every strategy on every graph, each test as a job of the grid. The rows of an output file are written in
+     * variation order whichever test finishes first.
+     */
     private static void runCompleteTest() {
-        for(String strategy : strategies) {
-            for (String graphType : ARTIFICIAL_GRAPH_TYPES) {
-                String graphName = "";
-
-                if (graphType.equals(BA_GRAPH)) {
-                    graphName = "ba";
-                } else if (graphType.equals(WS_GRAPH)) {
-                    graphName = "ws";
-                }
+        // The visualizer shares Gephi's preview between tests, so it can't run more than one at a time
+        GridRunner runner = new GridRunner(visualise ? 1 : workers, memory);
 
-                for (String size : GRAPH_SIZES) {
-                    String outputFilePath = "./results/" + strategy + "/" + graphType + "/" + size + ".csv";
+        addArtificialTests(runner, GRAPH_SIZES, VARIATIONS, ".graphml", export);
 
-                    for (int variationID = 1; variationID <= 20; variationID++) {
-                        String graphFilePath = "/graph/" + graphType + "/" + graphName + "_" + size + "_" + String.format("%02d", variationID) + ".graphml";
-                        runSingleTest(strategy, graphFilePath, outputFilePath);
-                    }
-                }
-            }
+        // The export needs every pair of nodes, which is infeasible on the large graphs
+        if (largeGraphs) {
+            addArtificialTests(runner, LARGE_GRAPH_SIZES, LARGE_VARIATIONS, ".csr", false);
+        }
 
-            for (String graphType : REAL_WORLD_GRAPHS) {
-                String graphFilePath = "/graph/real-world/" + graphType + ".txt";
+        for (int i = 0; i < REAL_WORLD_GRAPHS.length; i++) {
+            String graphType = REAL_WORLD_GRAPHS[i];
+            String graphFilePath = "/graph/real-world/" + graphType + ".txt";
+            int nodeCount = REAL_WORLD_SIZES[i];
+
+            for (String strategy : strategies) {
                 String outputFilePath = "./results/" + strategy + "/real-world/" + graphType + ".csv";
-                runSingleTest(strategy, graphFilePath, outputFilePath);
+                long testMemory = createStrategy(strategy, graphFilePath, outputFilePath).estimateMemory(nodeCount);
+                runner.add(outputFilePath, (long) nodeCount * nodeCount, testMemory, Collections.singletonList(
+                        workspace -> runSingleTest(strategy, graphFilePath, outputFilePath, workspace, 0, export)));
+            }
+        }
+
+        runner.run();
+    }
+
+    /**
+     * Add a test of every strategy on every variation of the Barabasi-Albert and Watts-Strogatz graphs
+     * @param sizes: node counts of the graphs
+     * @param variations: number of variations of each size
+     * @param extension: extension of the graph files, .csr for the graphs written by LargeGraphGenerator
+     * @param export: false to only time the tests, strategies that aren't feasible on a graph size are left out
+     */
+    private static void addArtificialTests(GridRunner runner, String[] sizes, int variations, String extension,
+                                           boolean export) {
+        for (String graphType : ARTIFICIAL_GRAPH_TYPES) {
+            String graphName = "";
+
+            if (graphType.equals(BA_GRAPH)) {
+                graphName = "ba";
+            } else if (graphType.equals(WS_GRAPH)) {
+                graphName = "ws";
+            }
+
+            for (String size : sizes) {
+                int nodeCount = Integer.parseInt(size);
+
+                // Graph outermost, every strategy is started on a variation before the next one is loaded
+                for (int i = 0; i < variations * strategies.length; i++) {
+                    int variationID = graphOutermost ? i / strategies.length + 1 : i % variations + 1;
+                    String strategy = graphOutermost ? strategies[i % strategies.length] : strategies[i / variations];
+
+                    String graphFilePath = "/graph/" + graphType + "/" + graphName + "_" + size + "_" + String.format("%02d", variationID) + extension;
+                    String outputFilePath = "./results/" + strategy + "/" + graphType + "/" + size + ".csv";
+                    int slot = variationID - 1;
+
+                    Strategy test = createStrategy(strategy, graphFilePath, outputFilePath, export);
+                    if (!test.isFeasible(nodeCount)) {
+                        if (variationID == 1) {
+                            System.out.println("Skipping " + strategy + " on " + graphName + "_" + size +
+                                    ": it needs every pair of nodes");
+                        }
+                        continue;
+                    }
+
+                    runner.add(outputFilePath, (long) nodeCount * nodeCount, test.estimateMemory(nodeCount),
+                            Collections.singletonList(workspace -> runSingleTest(strategy, graphFilePath,
+                                    outputFilePath, workspace, slot, export)));
+                }
             }
         }
     }
@@ -143,12 +220,10 @@ public class Main {
     }
 
     private static void createCsvFile(byte[] csvData, String pathString) {
-        Path path = Paths.get(pathString);
-
-        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path, CREATE))) {
-            out.write(csvData, 0, csvData.length);
+        try {
+            ResultSink.create(pathString, csvData);
         } catch (IOException e) {
-            e.getStackTrace();
+            e.printStackTrace();
         }
     }
 }
\ No newline at end of file
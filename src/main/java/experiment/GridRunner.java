@@ -0,0 +1,178 @@
+package experiment;
+
+import org.gephi.project.api.Project;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.api.Workspace;
+import org.openide.util.Lookup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs the jobs of an experiment grid on a work-stealing pool of worker threads.
+ *
+ * Every test gets a workspace of its own in one shared project, so its graph model is isolated from the tests that
+ * run at the same time. The project controller isn't thread-safe, so creating and deleting workspaces is serialized,
+ * while importing and running the tests is not.
+ *
+ * The tests of a job run one after another in the order they were added, while separate jobs run in any order;
+ * tests that share an output file keep their rows in order through the ResultSink. The most expensive jobs are
+ * started first, so that a long job doesn't start last and keep a single worker busy at the end of the grid. Jobs of
+ * equal cost start in the order they were added.
+ *
+ * Jobs are only handed to the pool once a worker is free and the heap they are estimated to take fits in the memory
+ * budget of the grid next to the jobs that are running, so large graphs run fewer tests at the same time than there
+ * are workers. A job that doesn't fit in the budget on its own runs alone. The thread that runs the grid waits for
+ * that, so the workers never block and jobs start in order of cost.
+ */
+public class GridRunner {
+    private final ForkJoinPool pool;
+    private final ProjectController projectController;
+    private final Object projectLock = new Object();
+    private final List<Job> jobs = new ArrayList<>();
+    private Project project;
+
+    private final long memory;
+    private final Object memoryLock = new Object();
+    private long reserved;      // Estimated heap of the jobs that are running
+    private int running;        // Jobs handed to the pool that haven't finished
+
+    /**
+     * @param workers: number of tests that run at the same time
+     * @param memory: number of bytes of heap the jobs that run at the same time may take together
+     */
+    public GridRunner(int workers, long memory) {
+        pool = new ForkJoinPool(Math.max(1, workers));
+        projectController = Lookup.getDefault().lookup(ProjectController.class);
+        this.memory = memory;
+    }
+
+    /**
+     * A single test, which imports its graph into the given workspace and runs a strategy on it
+     */
+    public interface Test {
+        void run(Workspace workspace);
+    }
+
+    /**
+     * Tests that run one after another on the same worker
+     */
+    private static class Job {
+        final String name;
+        final long cost;
+        final long memory;
+        final List<Test> tests;
+
+        Job(String name, long cost, long memory, List<Test> tests) {
+            this.name = name;
+            this.cost = cost;
+            this.memory = memory;
+            this.tests = tests;
+        }
+    }
+
+    /**
+     * Add a job to the grid
+     * @param name: name of the job in progress messages, e.g. the file its tests write to
+     * @param cost: estimated cost of the job, only compared with the costs of the other jobs
+     * @param memory: estimated number of bytes of heap the largest test of the job takes
+     * @param tests: the tests of the job, run in this order
+     */
+    public void add(String name, long cost, long memory, List<Test> tests) {
+        jobs.add(new Job(name, cost, memory, new ArrayList<>(tests)));
+    }
+
+    /**
+     * Run every job that was added and wait until all of them are done
+     */
+    public void run() {
+        synchronized (projectLock) {
+            projectController.newProject();
+            project = projectController.getCurrentProject();
+        }
+
+        jobs.sort(Comparator.comparingLong((Job job) -> job.cost).reversed());
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(jobs.size());
+
+        // The rows that were committed are written even if a job ends the grid
+        try {
+            for (Job job : jobs) {
+                try {
+                    reserve(job.memory);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    System.out.println("Grid interrupted, " + (jobs.size() - tasks.size()) + " jobs not started");
+                    break;
+                }
+
+                tasks.add(pool.submit(() -> runJob(job)));
+            }
+
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            ResultSink.closeAll();
+            pool.shutdown();
+        }
+
+        System.out.println("Finished " + jobs.size() + " jobs on " + pool.getParallelism() + " workers");
+        jobs.clear();
+    }
+
+    private void runJob(Job job) {
+        try {
+            runTests(job);
+        } finally {
+            release(job.memory);
+        }
+    }
+
+    /**
+     * Wait until a worker is free and the job fits in the memory budget next to the jobs that are running, or until
+     * no job is running. Called by the thread that submits the jobs, never by a worker.
+     */
+    private void reserve(long bytes) throws InterruptedException {
+        synchronized (memoryLock) {
+            while (running >= pool.getParallelism() || (reserved > 0 && reserved + bytes > memory)) {
+                memoryLock.wait();
+            }
+            reserved += bytes;
+            running++;
+        }
+    }
+
+    private void release(long bytes) {
+        synchronized (memoryLock) {
+            reserved -= bytes;
+            running--;
+            memoryLock.notifyAll();
+        }
+    }
+
+    private void runTests(Job job) {
+        for (Test test : job.tests) {
+            Workspace workspace;
+            synchronized (projectLock) {
+                workspace = projectController.newWorkspace(project);
+            }
+
+            // A failed test only loses its own row, the rest of the grid keeps running, even after an error such as
+            // running out of memory, since the heap of the test is free once it has failed
+            try {
+                test.run(workspace);
+            } catch (Throwable e) {
+                System.out.println("Test failed in job: " + job.name);
+                e.printStackTrace();
+            } finally {
+                synchronized (projectLock) {
+                    projectController.deleteWorkspace(workspace);
+                }
+            }
+        }
+    }
+}
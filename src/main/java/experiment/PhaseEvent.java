@@ -0,0 +1,47 @@
+package experiment;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a phase of a strategy run, e.g. importing the graph or a round of its execution, committed by a
+ * PhaseTimer when the phase ends. Only recorded while a flight recording with tyro.Phase enabled is running.
+ */
+@Name("tyro.Phase")
+@Label("Strategy Phase")
+@Category("Tyro")
+@Description("A phase of a strategy run, or a round of its execution")
+@StackTrace(false)
+class PhaseEvent extends Event {
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Graph")
+    String graph;
+
+    @Label("Size")
+    @Description("Number of nodes of the input graph")
+    int size;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Iteration")
+    @Description("Edges of the newcomer when the phase started, the round number for a round")
+    int iteration;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread of the run during the phase")
+    @DataAmount
+    long allocated;
+}
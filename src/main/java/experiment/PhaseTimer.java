@@ -0,0 +1,167 @@
+package experiment;
+
+import jdk.jfr.EventType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Times the phases of a single strategy run, with the time and the bytes allocated by the thread that runs it.
+ *
+ * Phases nest: a phase that begins before the last one ended is part of it, e.g. the update of the centralities in
+ * a round. Every phase is committed as a PhaseEvent when a flight recording asks for it, and can be kept to be
+ * written to a timing CSV at the end of the run. Phases are kept in arrays rather than objects, so the timer
+ * allocates next to nothing in the phases it measures.
+ */
+public class PhaseTimer {
+    private static final int MAX_DEPTH = 16;
+    private static final EventType EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+    private static final com.sun.management.ThreadMXBean THREADS = getThreads();
+
+    private final boolean enabled;
+    private final boolean keep;         // Keep every phase for the timing CSV
+    private final String strategy;
+    private final String graph;
+    private int size;
+
+    // Phases that began and haven't ended yet, the innermost last
+    private final String[] openPhases = new String[MAX_DEPTH];
+    private final int[] openIterations = new int[MAX_DEPTH];
+    private final long[] startNanos = new long[MAX_DEPTH];
+    private final long[] startBytes = new long[MAX_DEPTH];
+    private final PhaseEvent[] events = new PhaseEvent[MAX_DEPTH];
+    private int depth;
+
+    // Phases that ended, in the order they ended
+    private String[] phases = new String[64];
+    private int[] iterations = new int[64];
+    private long[] elapsed = new long[64];
+    private long[] allocated = new long[64];
+    private int count;
+
+    /**
+     * @param enabled: false to make every call return at once
+     * @param keep: true to keep every phase for writeCsv
+     * @param strategy: name of the strategy of the run
+     * @param graph: name of the input graph
+     */
+    public PhaseTimer(boolean enabled, boolean keep, String strategy, String graph) {
+        this.enabled = enabled;
+        this.keep = enabled && keep;
+        this.strategy = strategy;
+        this.graph = graph;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+
+        com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+        return hotspotThreads.isThreadAllocatedMemorySupported() ? hotspotThreads : null;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, or 0 if the JVM doesn't count them
+     */
+    private static long getAllocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * @param size: number of nodes of the input graph, once it is loaded
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Start a phase, which ends with the next call to end() that isn't matched by a later begin()
+     * @param phase: name of the phase, e.g. the method it times
+     * @param iteration: edges of the newcomer so far, or the number of a round
+     */
+    public void begin(String phase, int iteration) {
+        if (!enabled) return;
+        if (depth == MAX_DEPTH) throw new IllegalStateException("Phases nested too deep: " + phase);
+
+        openPhases[depth] = phase;
+        openIterations[depth] = iteration;
+
+        if (EVENT_TYPE.isEnabled()) {
+            events[depth] = new PhaseEvent();
+            events[depth].begin();
+        }
+
+        startBytes[depth] = getAllocatedBytes();
+        startNanos[depth] = System.nanoTime();
+        depth++;
+    }
+
+    /**
+     * End the innermost phase
+     */
+    public void end() {
+        if (!enabled) return;
+
+        long nanos = System.nanoTime();
+        long bytes = getAllocatedBytes();
+        depth--;
+
+        String phase = openPhases[depth];
+        int iteration = openIterations[depth];
+        long phaseNanos = nanos - startNanos[depth];
+        long phaseBytes = bytes - startBytes[depth];
+
+        PhaseEvent event = events[depth];
+        if (event != null) {
+            events[depth] = null;
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.strategy = strategy;
+                event.graph = graph;
+                event.size = size;
+                event.phase = phase;
+                event.iteration = iteration;
+                event.elapsed = phaseNanos;
+                event.allocated = phaseBytes;
+                event.commit();
+            }
+        }
+
+        if (keep) {
+            if (count == phases.length) {
+                phases = Arrays.copyOf(phases, count * 2);
+                iterations = Arrays.copyOf(iterations, count * 2);
+                elapsed = Arrays.copyOf(elapsed, count * 2);
+                allocated = Arrays.copyOf(allocated, count * 2);
+            }
+
+            phases[count] = phase;
+            iterations[count] = iteration;
+            elapsed[count] = phaseNanos;
+            allocated[count] = phaseBytes;
+            count++;
+        }
+    }
+
+    /**
+     * Write every phase that ended to a CSV file, one row per phase in the order they ended
+     */
+    public void writeCsv(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("strategy,graph,size,phase,iteration,elapsed_ns,allocated_bytes\n");
+
+            for (int i = 0; i < count; i++) {
+                writer.write(strategy + "," + graph + "," + size + "," + phases[i] + "," + iterations[i] + "," +
+                        elapsed[i] + "," + allocated[i] + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package experiment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The row of results of a single run, formatted into buffers that only this run writes to. The row is handed to a
+ * ResultSink once complete, so rows of runs that write to the same file at the same time never interleave.
+ *
+ * Integral values, which include the eccentricities, diameters and radii, are formatted without allocating. Other
+ * values are formatted by Double.toString so the CSV reads exactly as before. If the sink writes binary rows, every
+ * cell is also encoded as a tag byte followed by its payload: TEXT with a length and UTF-8 bytes, VALUE with a
+ * little-endian double, and END_ROW with nothing.
+ */
+public class ResultRow {
+    private static final int MAX_CELL_SIZE = 64;                   // Longest formatted number
+    private static final double MAX_PLAIN_INTEGRAL = 1e7;          // Double.toString switches to E notation here
+
+    static final byte TEXT = 1;
+    static final byte VALUE = 2;
+    static final byte END_ROW = 3;
+
+    byte[] text = new byte[1024];
+    int textLength;
+    byte[] binary = ResultSink.BINARY_ROWS ? new byte[1024] : null;
+    int binaryLength;
+
+    /**
+     * Start the row with a text cell, e.g. the name of the trial
+     */
+    public ResultRow text(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureText(bytes.length);
+        System.arraycopy(bytes, 0, text, textLength, bytes.length);
+        textLength += bytes.length;
+
+        if (binary != null) {
+            ensureBinary(5 + bytes.length);
+            binary[binaryLength++] = TEXT;
+            putInt(bytes.length);
+            System.arraycopy(bytes, 0, binary, binaryLength, bytes.length);
+            binaryLength += bytes.length;
+        }
+
+        return this;
+    }
+
+    /**
+     * Add a value as a new cell of the row, after a separator
+     */
+    public ResultRow cell(double value) {
+        ensureText(1 + MAX_CELL_SIZE);
+        text[textLength++] = ',';
+
+        // Same text as Double.toString, e.g. "6.0", without creating the string
+        if (value == Math.rint(value) && Math.abs(value) < MAX_PLAIN_INTEGRAL &&
+                (value != 0 || Double.doubleToRawLongBits(value) == 0)) {
+            putLong((long) value);
+            text[textLength++] = '.';
+            text[textLength++] = '0';
+        } else {
+            String formatted = Double.toString(value);
+            for (int i = 0; i < formatted.length(); i++) {
+                text[textLength++] = (byte) formatted.charAt(i);
+            }
+        }
+
+        if (binary != null) {
+            ensureBinary(9);
+            binary[binaryLength++] = VALUE;
+            long bits = Double.doubleToRawLongBits(value);
+            putInt((int) bits);
+            putInt((int) (bits >>> 32));
+        }
+
+        return this;
+    }
+
+    /**
+     * End the row, nothing can be added to it until it is cleared
+     */
+    void end() {
+        ensureText(1);
+        text[textLength++] = '\n';
+
+        if (binary != null) {
+            ensureBinary(1);
+            binary[binaryLength++] = END_ROW;
+        }
+    }
+
+    /**
+     * Empty the row so it can be reused
+     */
+    public void clear() {
+        textLength = 0;
+        binaryLength = 0;
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            text[textLength++] = '-';
+            value = -value;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= value) divisor *= 10;
+
+        for (; divisor > 0; divisor /= 10) {
+            text[textLength++] = (byte) ('0' + value / divisor % 10);
+        }
+    }
+
+    private void putInt(int value) {
+        binary[binaryLength++] = (byte) value;
+        binary[binaryLength++] = (byte) (value >>> 8);
+        binary[binaryLength++] = (byte) (value >>> 16);
+        binary[binaryLength++] = (byte) (value >>> 24);
+    }
+
+    private void ensureText(int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+    }
+
+    private void ensureBinary(int length) {
+        if (binaryLength + length > binary.length) {
+            binary = Arrays.copyOf(binary, Math.max(binary.length * 2, binaryLength + length));
+        }
+    }
+}
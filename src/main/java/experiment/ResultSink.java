@@ -0,0 +1,255 @@
+package experiment;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Output file of the results, kept open for the whole run instead of being reopened for every few cells.
+ *
+ * Runs format their cells into rows of their own (see ResultRow) and commit each row whole, so rows of runs that
+ * share the file never interleave. A row committed with a slot, e.g. the variation id of its graph, is written
+ * after the rows of every lower slot, so the file has the same order however the runs were scheduled. Committing
+ * only takes a lock that is never waited for: whichever run finds the next row in order writes every row that is
+ * ready, and the others return at once.
+ *
+ * Rows are buffered and written to the file's channel in batches. If BINARY_ROWS is enabled, every row is also
+ * written in binary to a file next to the CSV (<csv>.rows).
+ */
+public class ResultSink implements Closeable {
+    // Also write every row in binary next to the CSV
+    static final boolean BINARY_ROWS = false;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int FLUSH_THRESHOLD = BUFFER_SIZE / 2;    // Rows are written once this much is buffered
+    private static final int BINARY_MAGIC = 0x54524F57;     // "TROW"
+    private static final int BINARY_VERSION = 1;
+
+    private static final ResultRow SKIPPED = new ResultRow();
+    private static final Map<String, ResultSink> openSinks = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final FileChannel binaryChannel;
+    private final ByteBuffer binaryBuffer;
+
+    // Rows committed ahead of their turn, by slot
+    private final Map<Integer, ResultRow> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile int nextSlot;
+
+    private ResultSink(String path, boolean truncate) throws IOException {
+        this.path = path;
+        File file = new File(path);
+        if (file.getParentFile() != null) file.getParentFile().mkdirs();     // Create parent directories if not already exist
+
+        channel = open(Paths.get(path), truncate);
+
+        if (BINARY_ROWS) {
+            binaryChannel = open(Paths.get(path + ".rows"), truncate);
+            binaryBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (binaryChannel.size() == 0) binaryBuffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION);
+        } else {
+            binaryChannel = null;
+            binaryBuffer = null;
+        }
+    }
+
+    private static FileChannel open(Path path, boolean truncate) throws IOException {
+        return truncate ? FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING) :
+                FileChannel.open(path, CREATE, WRITE, APPEND);
+    }
+
+    /**
+     * Start a new output file with the header, or return its sink if the file is already open
+     * @param path: the output file
+     * @param header: written once, when the file is created
+     */
+    public static ResultSink create(String path, byte[] header) throws IOException {
+        synchronized (openSinks) {
+            ResultSink sink = openSinks.get(path);
+            if (sink != null) return sink;
+
+            sink = new ResultSink(path, true);
+            write(header, header.length, sink.channel, sink.buffer);
+            openSinks.put(path, sink);
+            return sink;
+        }
+    }
+
+    /**
+     * @return the sink of the output file, which is opened to append to it if it isn't open yet
+     */
+    public static ResultSink get(String path) throws IOException {
+        ResultSink sink = openSinks.get(path);
+        if (sink != null) return sink;
+
+        synchronized (openSinks) {
+            sink = openSinks.get(path);
+            if (sink == null) {
+                sink = new ResultSink(path, false);
+                openSinks.put(path, sink);
+            }
+            return sink;
+        }
+    }
+
+    /**
+     * Write what is buffered in every open sink and close their files
+     */
+    public static void closeAll() {
+        synchronized (openSinks) {
+            for (ResultSink sink : openSinks.values()) {
+                try {
+                    sink.closeChannels();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            openSinks.clear();
+        }
+    }
+
+    /**
+     * Commit a complete row, which is written once the rows of every lower slot were committed or skipped
+     * @param slot: position of the row in the file, from 0. Every slot is committed or skipped once.
+     */
+    public void commit(int slot, ResultRow row) throws IOException {
+        row.end();
+        pending.put(slot, row);
+        drain();
+    }
+
+    /**
+     * Give up a slot whose row won't be committed, e.g. because its run failed, so later rows aren't held back
+     */
+    public void skip(int slot) throws IOException {
+        pending.put(slot, SKIPPED);
+        drain();
+    }
+
+    /**
+     * Write a complete row after the rows written so far, without a slot
+     */
+    public void append(ResultRow row) throws IOException {
+        row.end();
+
+        writeLock.lock();
+        try {
+            writeRow(row);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Write the rows that are next in order, unless another run is already writing them
+     */
+    private void drain() throws IOException {
+        // A row committed while the writer releases the lock would be left behind, so check again after releasing
+        while (pending.containsKey(nextSlot) && writeLock.tryLock()) {
+            try {
+                ResultRow row;
+                while ((row = pending.remove(nextSlot)) != null) {
+                    if (row != SKIPPED) writeRow(row);
+                    nextSlot++;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Buffer the row, writing the buffer once enough rows are in it. Only called with the write lock held.
+     */
+    private void writeRow(ResultRow row) throws IOException {
+        write(row.text, row.textLength, channel, buffer);
+        if (binaryBuffer != null) write(row.binary, row.binaryLength, binaryChannel, binaryBuffer);
+
+        if (buffer.position() >= FLUSH_THRESHOLD) flush();
+    }
+
+    private static void write(byte[] bytes, int length, FileChannel channel, ByteBuffer buffer) throws IOException {
+        for (int i = 0; i < length; ) {
+            if (!buffer.hasRemaining()) writeBuffer(channel, buffer);
+
+            int count = Math.min(buffer.remaining(), length - i);
+            buffer.put(bytes, i, count);
+            i += count;
+        }
+    }
+
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Write everything that is buffered to the files
+     */
+    public void flush() throws IOException {
+        writeLock.lock();
+        try {
+            writeBuffer(channel, buffer);
+            if (binaryBuffer != null) writeBuffer(binaryChannel, binaryBuffer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Write what is buffered and close the file, the next sink of the same file appends to it
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (openSinks) {
+            openSinks.remove(path, this);
+        }
+        closeChannels();
+    }
+
+    /**
+     * Write the rows still waiting for a lower slot in slot order, then what is buffered, and close the files
+     */
+    private void closeChannels() throws IOException {
+        try {
+            writeLock.lock();
+            try {
+                pending.keySet().stream().sorted().forEach(slot -> {
+                    ResultRow row = pending.remove(slot);
+                    if (row != SKIPPED) {
+                        System.out.println("Row " + slot + " of " + path + " is written after a missing row");
+                        try {
+                            writeRow(row);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+            } finally {
+                writeLock.unlock();
+            }
+
+            flush();
+        } finally {
+            channel.close();
+            if (binaryChannel != null) binaryChannel.close();
+        }
+    }
+}
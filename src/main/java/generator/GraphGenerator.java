@@ -1,9 +1,13 @@
 package generator;
 
+import metrics.GraphSnapshot;
+import metrics.SnapshotBuilder;
 import org.graphstream.algorithm.generator.BarabasiAlbertGenerator;
-import org.graphstream.algorithm.generator.Generator;
+import org.graphstream.algorithm.generator.BaseGenerator;
 import org.graphstream.algorithm.generator.WattsStrogatzGenerator;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.graphstream.stream.file.FileSink;
 import org.graphstream.stream.file.FileSinkGraphML;
@@ -14,14 +18,14 @@ import java.nio.file.Paths;
 
 public class GraphGenerator {
     // Barabasi-Albert Settings
-    private static final int MAX_LINKS_PER_STEP = 3;
+    static final int MAX_LINKS_PER_STEP = 3;
 
     // Watts-Strogatz Settings
-    private static final int BASE_DEGREE = 6;    // 4 to 8
-    private static final double REWIRE_PROBABILITY = 0.1;   // Real-world graph lower than 0.1 on avg
+    static final int BASE_DEGREE = 6;    // 4 to 8
+    static final double REWIRE_PROBABILITY = 0.1;   // Real-world graph lower than 0.1 on avg
 
     // File path for resources
-    private static final String FILE_PATH = "src/main/resources/graph/";
+    static final String FILE_PATH = "src/main/resources/graph/";
     private static final int INVALID_ID = -1;   // Used when no variation is required
 
     private static final int MAX_NODE_COUNT = 2000;
@@ -62,24 +66,11 @@ public class GraphGenerator {
     /**
      * Generate and export a Barabasi-Albert graph with specified ID
      * Graph size is specified by the nodeCount field
-     * Maximum number links for each node is specified by the MAX_LINKS_PER_STEP field
      *
      * @param graphID: variation ID of the graph
      */
     private static void generateBA(int graphID) {
-        Graph graph = new SingleGraph("Barabasi-Albert");
-
-        // Between 1 and "n" new links per node added
-        Generator gen = new BarabasiAlbertGenerator(MAX_LINKS_PER_STEP);
-
-        gen.addSink(graph);
-        gen.begin();
-
-        for(int i=0; i<nodeCount; i++) {
-            gen.nextEvents();
-        }
-
-        gen.end();
+        Graph graph = buildBA(nodeCount, null);
         // graph.display(); // Visualize graph structure
 
         exportGraph(graph, "barabasi-albert", "ba", graphID);
@@ -96,14 +87,78 @@ public class GraphGenerator {
     /**
      * Generate and export a Watts-Strogatz graph with ID specified
      * Graph size is specified by the nodeCount field
-     * Initial degree of a node is specified by the BASE_DEGREE field
-     * Rewiring probability for each node is specified by the REWIRE_PROBABILITY field
      *
      * @param graphID: variation ID of the graph
      */
     private static void generateWS(int graphID) {
+        Graph graph = buildWS(nodeCount, null);
+        // graph.display(false); // Node position is provided
+
+        exportGraph(graph, "watts-strogatz", "ws", graphID);
+    }
+
+    /**
+     * Generate a Barabasi-Albert graph in memory, the same graph is generated for the same seed
+     * Uses the same settings as the exported graphs
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator
+     * @return the snapshot of the generated graph
+     */
+    public static GraphSnapshot generateBA(int nodeCount, long seed) {
+        return toSnapshot(buildBA(nodeCount, seed));
+    }
+
+    /**
+     * Generate a Watts-Strogatz graph in memory, the same graph is generated for the same seed
+     * Uses the same settings as the exported graphs
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator
+     * @return the snapshot of the generated graph
+     */
+    public static GraphSnapshot generateWS(int nodeCount, long seed) {
+        return toSnapshot(buildWS(nodeCount, seed));
+    }
+
+    /**
+     * Build a Barabasi-Albert graph, used for both the exported graphs and the ones generated in memory
+     * Maximum number links for each node is specified by the MAX_LINKS_PER_STEP field
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator, or null for a different graph every time
+     */
+    private static Graph buildBA(int nodeCount, Long seed) {
+        Graph graph = new SingleGraph("Barabasi-Albert");
+
+        // Between 1 and "n" new links per node added
+        BaseGenerator gen = new BarabasiAlbertGenerator(MAX_LINKS_PER_STEP);
+        if (seed != null) gen.setRandomSeed(seed);
+
+        gen.addSink(graph);
+        gen.begin();
+
+        for(int i=0; i<nodeCount; i++) {
+            gen.nextEvents();
+        }
+
+        gen.end();
+
+        return graph;
+    }
+
+    /**
+     * Build a Watts-Strogatz graph, used for both the exported graphs and the ones generated in memory
+     * Initial degree of a node is specified by the BASE_DEGREE field
+     * Rewiring probability for each node is specified by the REWIRE_PROBABILITY field
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator, or null for a different graph every time
+     */
+    private static Graph buildWS(int nodeCount, Long seed) {
         Graph graph = new SingleGraph("Watts-Strogatz");
-        Generator gen = new WattsStrogatzGenerator(nodeCount, BASE_DEGREE, REWIRE_PROBABILITY);
+        BaseGenerator gen = new WattsStrogatzGenerator(nodeCount, BASE_DEGREE, REWIRE_PROBABILITY);
+        if (seed != null) gen.setRandomSeed(seed);
 
         gen.addSink(graph);
         gen.begin();
@@ -113,9 +168,25 @@ public class GraphGenerator {
         }
 
         gen.end();
-        // graph.display(false); // Node position is provided
 
-        exportGraph(graph, "watts-strogatz", "ws", graphID);
+        return graph;
+    }
+
+    /**
+     * Copy the nodes and edges of a generated graph to a snapshot, in the order they were generated
+     */
+    private static GraphSnapshot toSnapshot(Graph graph) {
+        SnapshotBuilder builder = new SnapshotBuilder();
+
+        for(Node node : graph.<Node>getNodeSet()) {
+            builder.addNode(node.getId());
+        }
+
+        for(Edge edge : graph.<Edge>getEdgeSet()) {
+            builder.addEdge(builder.addNode(edge.getNode0().getId()), builder.addNode(edge.getNode1().getId()));
+        }
+
+        return builder.build();
     }
 
     /**
@@ -0,0 +1,183 @@
+package generator;
+
+import metrics.GraphSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates Barabasi-Albert and Watts-Strogatz graphs of 100k to 1M nodes straight into graph snapshots, without
+ * building a GraphStream graph or writing GraphML. Only the edges of the graph and their CSR layout are held in
+ * memory, about 16 bytes per edge, and the nodes are numbered from 0.
+ *
+ * The graphs use the same settings as GraphGenerator. Their snapshots are written next to the smaller graphs,
+ * e.g. graph/barabasi-albert/ba_100000_01.csr, and the strategies load them like any other graph file.
+ */
+public class LargeGraphGenerator {
+    private static final int[] NODE_COUNTS = {100000, 250000, 500000, 1000000};
+    private static final int VARIATIONS = 5;
+    private static final int MAX_REWIRE_ATTEMPTS = 1000;    // The edge keeps its target if no free node is found
+
+    public static void main(String[] args) {
+        generate();
+    }
+
+    /**
+     * Generate both Barabasi-Albert and Watts-Strogatz graphs of every size in NODE_COUNTS
+     * VARIATIONS variations are generated for each size, each from its own seed so they can be generated again
+     */
+    private static void generate() {
+        for (int nodeCount : NODE_COUNTS) {
+            for (int id = 1; id <= VARIATIONS; id++) {
+                long seed = 31L * nodeCount + id;
+
+                exportGraph(generateBA(nodeCount, seed), "barabasi-albert", "ba", nodeCount, id);
+                exportGraph(generateWS(nodeCount, seed), "watts-strogatz", "ws", nodeCount, id);
+            }
+        }
+    }
+
+    /**
+     * Generate a Barabasi-Albert graph by preferential attachment in O(m)
+     * Starts from two connected nodes, every later node links to between 1 and MAX_LINKS_PER_STEP distinct nodes.
+     * Every edge is kept as its two endpoints, so a node appears in the edge array once per edge it has, and a
+     * uniformly random entry of the array is a node picked with probability proportional to its degree.
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator, the same graph is generated for the same seed
+     * @return the snapshot of the generated graph
+     */
+    public static GraphSnapshot generateBA(int nodeCount, long seed) {
+        if (nodeCount < 2) throw new IllegalArgumentException("Graph needs at least 2 nodes: " + nodeCount);
+
+        int maxLinks = GraphGenerator.MAX_LINKS_PER_STEP;
+        long maxEndpoints = 2 + 2L * (nodeCount - 2) * maxLinks;
+        if (maxEndpoints > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph is too large: " + nodeCount);
+        }
+
+        Random random = new Random(seed);
+        int[] edges = new int[(int) maxEndpoints];
+        int[] targets = new int[maxLinks];
+
+        edges[0] = 0;
+        edges[1] = 1;
+        int endpoints = 2;
+
+        for (int v = 2; v < nodeCount; v++) {
+            // Every earlier node has an edge, so there are always enough distinct nodes to pick from
+            int links = Math.min(1 + random.nextInt(maxLinks), v);
+
+            for (int k = 0; k < links; k++) {
+                int target;
+                do {
+                    target = edges[random.nextInt(endpoints)];
+                } while (contains(targets, k, target));
+
+                targets[k] = target;
+            }
+
+            // The edges are added once every target is picked, so the node never links to itself
+            for (int k = 0; k < links; k++) {
+                edges[endpoints++] = v;
+                edges[endpoints++] = targets[k];
+            }
+        }
+
+        return GraphSnapshot.ofGenerated(nodeCount, Arrays.copyOf(edges, endpoints));
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Generate a Watts-Strogatz graph: a ring where every node is connected to the BASE_DEGREE nearest nodes,
+     * whose edges are rewired to a random node with probability REWIRE_PROBABILITY
+     * The edge from a node to its j-th successor on the ring is kept in slot j of that node, and rewiring only
+     * changes the target of a slot, so two nodes are adjacent if a slot of either node holds the other one.
+     *
+     * @param nodeCount: number of nodes of the graph
+     * @param seed: seed of the random generator, the same graph is generated for the same seed
+     * @return the snapshot of the generated graph
+     */
+    public static GraphSnapshot generateWS(int nodeCount, long seed) {
+        int slots = GraphGenerator.BASE_DEGREE / 2;
+        if (nodeCount <= GraphGenerator.BASE_DEGREE) {
+            throw new IllegalArgumentException("Graph needs more than " + GraphGenerator.BASE_DEGREE + " nodes: " +
+                    nodeCount);
+        }
+
+        long edgeCount = (long) nodeCount * slots;
+        if (2 * edgeCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph is too large: " + nodeCount);
+        }
+
+        Random random = new Random(seed);
+        int[] edges = new int[(int) (2 * edgeCount)];
+
+        for (int v = 0; v < nodeCount; v++) {
+            for (int j = 1; j <= slots; j++) {
+                int edge = v * slots + j - 1;
+                edges[2 * edge] = v;
+                edges[2 * edge + 1] = (v + j) % nodeCount;
+            }
+        }
+
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (random.nextDouble() >= GraphGenerator.REWIRE_PROBABILITY) continue;
+
+            // The current target is still adjacent, so the edge always moves to another node
+            int source = edges[2 * edge];
+            for (int attempt = 0; attempt < MAX_REWIRE_ATTEMPTS; attempt++) {
+                int target = random.nextInt(nodeCount);
+
+                if (target != source && !isAdjacent(edges, slots, source, target)) {
+                    edges[2 * edge + 1] = target;
+                    break;
+                }
+            }
+        }
+
+        return GraphSnapshot.ofGenerated(nodeCount, edges);
+    }
+
+    private static boolean isAdjacent(int[] edges, int slots, int u, int v) {
+        for (int j = 0; j < slots; j++) {
+            if (edges[2 * (u * slots + j) + 1] == v || edges[2 * (v * slots + j) + 1] == u) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write the snapshot of a graph to the resource directory in the .csr format
+     *
+     * @param snapshot: the graph that will be exported
+     * @param folderName: the folder that the graph will be placed under
+     * @param graphName: name of the graph
+     * @param nodeCount: number of nodes of the graph
+     * @param graphID: variation ID of the graph
+     */
+    private static void exportGraph(GraphSnapshot snapshot, String folderName, String graphName, int nodeCount,
+                                    int graphID) {
+        try {
+            Path directory = Paths.get(GraphGenerator.FILE_PATH + folderName);
+            Files.createDirectories(directory);  // Create directory if it doesn't already exist
+
+            Path file = directory.resolve(graphName + "_" + nodeCount + "_" + String.format("%02d", graphID) + ".csr");
+            snapshot.write(file, null);
+
+            System.out.println("Generated " + snapshot.getNodeCount() + " nodes and " + snapshot.getEdgeCount() +
+                    " edges: " + file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * All-pairs distance pass that runs the breadth-first searches of 64 sources at once, one bit per source.
+ * Each node keeps a word of the sources that have reached it and a word of the sources whose frontier it is on,
+ * so one sweep over the edges advances all 64 searches by one level.
+ *
+ * It computes closeness, eccentricity, diameter, radius and average path length, but not betweenness, which
+ * needs the path counts of every source. Distances are summed as integers so the results are exact and don't
+ * depend on the number of threads.
+ */
+public class BitParallelDistances {
+    private static final int BATCH_SIZE = Long.SIZE;
+
+    private final ForkJoinPool pool;
+
+    public BitParallelDistances() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BitParallelDistances(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Compute closeness, eccentricity, diameter, radius and average path length
+     * @param metrics: results are written to these metrics
+     */
+    public void compute(CompactGraph graph, GraphMetrics metrics) {
+        int n = graph.getNodeCount();
+        int batches = (n + BATCH_SIZE - 1) / BATCH_SIZE;
+        ThreadLocal<Batch> scratch = ThreadLocal.withInitial(() -> new Batch(graph));
+
+        PartialSums sums = batches == 0 ? new PartialSums()
+                : pool.invoke(new BatchRange(scratch, metrics, 0, batches));
+
+        metrics.pathLength = (double) sums.distanceSum / sums.reachablePairs;
+        metrics.diameter = sums.diameter;
+        metrics.radius = sums.radius;
+    }
+
+    /**
+     * Accumulated results of a range of batches
+     */
+    private static class PartialSums {
+        long distanceSum;
+        long reachablePairs;
+        int diameter;
+        int radius = Integer.MAX_VALUE;
+
+        void add(PartialSums other) {
+            distanceSum += other.distanceSum;
+            reachablePairs += other.reachablePairs;
+            diameter = Math.max(diameter, other.diameter);
+            radius = Math.min(radius, other.radius);
+        }
+    }
+
+    /**
+     * Scratch words of one worker, reused for every batch it searches
+     */
+    private static class Batch {
+        private final CompactGraph graph;
+        private final long[] visited;
+        private long[] frontier;
+        private long[] next;
+
+        // Per source results, indexed by bit
+        private final long[] sums = new long[BATCH_SIZE];
+        private final int[] counts = new int[BATCH_SIZE];
+        private final int[] eccentricities = new int[BATCH_SIZE];
+
+        Batch(CompactGraph graph) {
+            this.graph = graph;
+
+            int n = graph.getNodeCount();
+            visited = new long[n];
+            frontier = new long[n];
+            next = new long[n];
+        }
+
+        /**
+         * Search from the sources [first, first + 64) at once
+         */
+        void search(int first, GraphMetrics metrics, PartialSums partial) {
+            int n = graph.getNodeCount();
+            int size = Math.min(BATCH_SIZE, n - first);
+            int[] offsets = graph.offsets;
+            int[] degrees = graph.degrees;
+            int[] neighbors = graph.neighbors;
+
+            Arrays.fill(visited, 0);
+            Arrays.fill(frontier, 0);
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            Arrays.fill(eccentricities, 0);
+
+            for (int bit = 0; bit < size; bit++) {
+                visited[first + bit] = 1L << bit;
+                frontier[first + bit] = 1L << bit;
+            }
+
+            for (int distance = 1; ; distance++) {
+                long levelMask = 0;
+
+                // A node joins the next frontier of every source that has a neighbour on its frontier
+                for (int v = 0; v < n; v++) {
+                    long incoming = 0;
+                    for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                        incoming |= frontier[neighbors[k]];
+                    }
+
+                    long reached = incoming & ~visited[v];
+                    next[v] = reached;
+                    if (reached == 0) continue;
+
+                    visited[v] |= reached;
+                    levelMask |= reached;
+
+                    while (reached != 0) {
+                        int bit = Long.numberOfTrailingZeros(reached);
+                        sums[bit] += distance;
+                        counts[bit]++;
+                        reached &= reached - 1;
+                    }
+                }
+
+                if (levelMask == 0) break;
+
+                // Sources that reached a node at this level have an eccentricity of at least this distance
+                for (long mask = levelMask; mask != 0; mask &= mask - 1) {
+                    eccentricities[Long.numberOfTrailingZeros(mask)] = distance;
+                }
+
+                long[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+
+            for (int bit = 0; bit < size; bit++) {
+                int source = first + bit;
+                long sum = sums[bit];
+                int reachable = counts[bit];
+
+                partial.distanceSum += sum;
+                partial.reachablePairs += reachable;
+                partial.diameter = Math.max(partial.diameter, eccentricities[bit]);
+                partial.radius = Math.min(partial.radius, eccentricities[bit]);
+
+                metrics.closeness[source] = (reachable == 0 || sum == 0) ? 0 : reachable / (double) sum;
+                metrics.eccentricity[source] = eccentricities[bit];
+            }
+        }
+    }
+
+    private static class BatchRange extends RecursiveTask<PartialSums> {
+        private final ThreadLocal<Batch> scratch;
+        private final GraphMetrics metrics;
+        private final int from;
+        private final int to;
+
+        BatchRange(ThreadLocal<Batch> scratch, GraphMetrics metrics, int from, int to) {
+            this.scratch = scratch;
+            this.metrics = metrics;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PartialSums compute() {
+            if (to - from == 1) {
+                PartialSums sums = new PartialSums();
+                scratch.get().search(from * BATCH_SIZE, metrics, sums);
+                return sums;
+            }
+
+            int middle = (from + to) >>> 1;
+            BatchRange left = new BatchRange(scratch, metrics, from, middle);
+            BatchRange right = new BatchRange(scratch, metrics, middle, to);
+
+            right.fork();
+            PartialSums sums = left.compute();
+            sums.add(right.join());
+
+            return sums;
+        }
+    }
+}
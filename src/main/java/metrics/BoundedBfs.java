@@ -0,0 +1,160 @@
+package metrics;
+
+import org.gephi.graph.api.Node;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Breadth-first search up to a given depth, for the k-hop neighbourhood queries of the strategies.
+ *
+ * Visited nodes are marked with the number of the search instead of a boolean, so nothing has to be cleared
+ * between searches, and the queue doubles as the result. All arrays are reused, so a search doesn't allocate
+ * once they have grown to the size of the graph. The result is exposed as a set view, valid until the next search.
+ */
+public class BoundedBfs {
+    private final CompactGraph graph;
+    private final NeighborhoodView view = new NeighborhoodView();
+
+    private int[] stamps = new int[0];      // Search number that last visited each node
+    private int[] queue = new int[0];       // Nodes in BFS order, the root first
+    private int epoch;
+    private int root = -1;
+    private int size;                       // Number of nodes in queue[], including the root
+
+    public BoundedBfs(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Find every node at a distance of at most depth from the root
+     * @return number of nodes found, excluding the root
+     */
+    public int search(int root, int depth) {
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        start(root);
+
+        int levelEnd = size;
+        for (int level = 0, head = 0; level < depth && head < levelEnd; level++) {
+            for (; head < levelEnd; head++) {
+                int v = queue[head];
+
+                for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                    int w = neighbors[k];
+                    if (stamps[w] != epoch) {
+                        stamps[w] = epoch;
+                        queue[size++] = w;
+                    }
+                }
+            }
+            levelEnd = size;
+        }
+
+        return size - 1;
+    }
+
+    /**
+     * Same result as search, read from the cached distances instead
+     * @return number of nodes found, excluding the root
+     */
+    public int search(int root, int depth, DistanceOracle distances) {
+        start(root);
+
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            int distance = distances.getDistance(root, v);
+            if (distance > 0 && distance <= depth) {
+                stamps[v] = epoch;
+                queue[size++] = v;
+            }
+        }
+
+        return size - 1;
+    }
+
+    private void start(int root) {
+        int n = graph.getNodeCount();
+        if (stamps.length < n) {
+            stamps = Arrays.copyOf(stamps, n);
+            queue = new int[n];
+        }
+
+        // Stamps of older searches could match again once the counter wraps around
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+
+        this.root = root;
+        stamps[root] = epoch;
+        queue[0] = root;
+        size = 1;
+    }
+
+    /**
+     * @return true if the node was found by the last search, the root excluded
+     */
+    public boolean contains(int id) {
+        return id != root && id >= 0 && id < stamps.length && stamps[id] == epoch;
+    }
+
+    /**
+     * @return number of nodes found by the last search, excluding the root
+     */
+    public int getResultCount() {
+        return size - 1;
+    }
+
+    /**
+     * @param i: index of the result, from 0 to getResultCount() - 1, in BFS order
+     * @return dense id of the node
+     */
+    public int getResult(int i) {
+        return queue[i + 1];
+    }
+
+    /**
+     * @return the nodes found by the last search, excluding the root. The same view is returned by every call
+     * and changes with the next search.
+     */
+    public NeighborhoodView getNodes() {
+        return view;
+    }
+
+    /**
+     * Read-only set of the nodes found by the last search, without copying them
+     */
+    public class NeighborhoodView extends AbstractSet<Node> {
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Node && BoundedBfs.this.contains(graph.indexOf((Node) o));
+        }
+
+        @Override
+        public int size() {
+            return getResultCount();
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<Node>() {
+                private int next = 1;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Node next() {
+                    if (next >= size) throw new NoSuchElementException();
+                    return graph.getNode(queue[next++]);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package metrics;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+import java.util.Arrays;
+
+/**
+ * A compressed-sparse-row snapshot of an undirected Gephi graph. Every node is given a dense int id
+ * (in the order Gephi iterates them), and the neighbours of node v are stored in
+ * neighbors[offsets[v] .. offsets[v] + degrees[v]).
+ *
+ * The snapshot is built once from the imported graph and is kept in sync with the edges added to the newcomer.
+ * When a node runs out of room for a new neighbour, its segment is moved to the end of the neighbor array
+ * with twice the capacity, so an insertion only costs O(degree) instead of rebuilding the whole array.
+ */
+public class CompactGraph {
+    private static final int NO_ID = -1;
+
+    Node[] nodes;       // Dense id -> Gephi node
+    int[] offsets;      // Start of each node's neighbour segment
+    int[] degrees;      // Number of neighbours used in each segment
+    int[] capacities;   // Number of slots reserved for each segment
+    int[] neighbors;
+
+    private int[] idByStoreId;     // Gephi store id -> dense id
+    private int nodeCount;
+    private int edgeCount;
+    private int used;       // Number of slots of the neighbor array in use
+    private int version;    // Incremented on every structural change
+
+    /**
+     * Build a snapshot of the specified graph. Self loops and parallel edges are ignored.
+     * @param graph: the undirected graph to take the snapshot from
+     */
+    public CompactGraph(Graph graph) {
+        Node[] graphNodes = graph.getNodes().toArray();
+        int count = graphNodes.length;
+
+        nodes = Arrays.copyOf(graphNodes, Math.max(count, 1));
+        idByStoreId = new int[0];
+        for (int id = 0; id < count; id++) {
+            mapStoreId(graphNodes[id], id);
+        }
+
+        // First pass counts degrees so that every segment can be laid out contiguously
+        Edge[] edges = graph.getEdges().toArray();
+        degrees = new int[nodes.length];
+        for (Edge edge : edges) {
+            if (edge.isSelfLoop()) continue;
+            degrees[indexOf(edge.getSource())]++;
+            degrees[indexOf(edge.getTarget())]++;
+        }
+
+        offsets = new int[nodes.length];
+        capacities = new int[nodes.length];
+        for (int id = 0; id < count; id++) {
+            offsets[id] = used;
+            capacities[id] = degrees[id];
+            used += degrees[id];
+        }
+
+        // Second pass fills the segments, dropping parallel edges
+        neighbors = new int[Math.max(used, 1)];
+        Arrays.fill(degrees, 0);
+        for (Edge edge : edges) {
+            if (edge.isSelfLoop()) continue;
+            int source = indexOf(edge.getSource());
+            int target = indexOf(edge.getTarget());
+
+            if (!isAdjacent(source, target)) {
+                neighbors[offsets[source] + degrees[source]++] = target;
+                neighbors[offsets[target] + degrees[target]++] = source;
+                edgeCount++;
+            }
+        }
+
+        nodeCount = count;
+    }
+
+    /**
+     * Build a snapshot from neighbour segments that are already laid out, e.g. by a GraphSnapshot.
+     * The neighbor array is never written in place, so it can be shared with other snapshots.
+     * @param graphNodes: the Gephi node of every dense id
+     * @param offsets: start of each node's segment, with the total number of neighbours at the end
+     * @param neighbors: the segments of every node, without self loops or parallel edges
+     */
+    CompactGraph(Node[] graphNodes, int[] offsets, int[] neighbors) {
+        int count = graphNodes.length;
+
+        nodes = Arrays.copyOf(graphNodes, Math.max(count, 1));
+        idByStoreId = new int[0];
+        for (int id = 0; id < count; id++) {
+            mapStoreId(graphNodes[id], id);
+        }
+
+        this.offsets = Arrays.copyOf(offsets, nodes.length);
+        degrees = new int[nodes.length];
+        capacities = new int[nodes.length];
+        for (int id = 0; id < count; id++) {
+            degrees[id] = offsets[id + 1] - offsets[id];
+            capacities[id] = degrees[id];
+        }
+
+        // Every slot counts as used, so the first node that grows copies the array instead of writing past the end
+        this.neighbors = neighbors.length > 0 ? neighbors : new int[1];
+        used = this.neighbors.length;
+        edgeCount = offsets[count] / 2;
+        nodeCount = count;
+    }
+
+    /**
+     * Add a node that has just been added to the Gephi graph (e.g. the newcomer)
+     * @param node: the node to add
+     * @return the dense id given to the node
+     */
+    public int addNode(Node node) {
+        int id = indexOf(node);
+        if (id != NO_ID) return id;
+
+        if (nodeCount == nodes.length) {
+            int length = nodes.length * 2;
+            nodes = Arrays.copyOf(nodes, length);
+            offsets = Arrays.copyOf(offsets, length);
+            degrees = Arrays.copyOf(degrees, length);
+            capacities = Arrays.copyOf(capacities, length);
+        }
+
+        id = nodeCount++;
+        nodes[id] = node;
+        offsets[id] = used;
+        degrees[id] = 0;
+        capacities[id] = 0;
+        mapStoreId(node, id);
+        version++;
+
+        return id;
+    }
+
+    /**
+     * Add an undirected edge between two nodes that are already part of the snapshot
+     * @return true if the edge was added, false if it is a self loop or already exists
+     */
+    public boolean addEdge(Node source, Node target) {
+        return addEdge(indexOf(source), indexOf(target));
+    }
+
+    /**
+     * Add an undirected edge between two dense ids
+     * @return true if the edge was added, false if it is a self loop or already exists
+     */
+    public boolean addEdge(int source, int target) {
+        if (source == target || isAdjacent(source, target)) return false;
+
+        append(source, target);
+        append(target, source);
+        edgeCount++;
+        version++;
+
+        return true;
+    }
+
+    private void append(int node, int neighbor) {
+        if (degrees[node] == capacities[node]) {
+            // Move the segment to the end of the neighbor array with twice the capacity
+            int capacity = Math.max(4, capacities[node] * 2);
+            if (used + capacity > neighbors.length) {
+                neighbors = Arrays.copyOf(neighbors, Math.max(neighbors.length * 2, used + capacity));
+            }
+
+            System.arraycopy(neighbors, offsets[node], neighbors, used, degrees[node]);
+            offsets[node] = used;
+            capacities[node] = capacity;
+            used += capacity;
+        }
+
+        neighbors[offsets[node] + degrees[node]++] = neighbor;
+    }
+
+    public boolean isAdjacent(int source, int target) {
+        // Search from the node with the smaller degree
+        if (degrees[source] > degrees[target]) {
+            int temp = source;
+            source = target;
+            target = temp;
+        }
+
+        for (int k = offsets[source], end = k + degrees[source]; k < end; k++) {
+            if (neighbors[k] == target) return true;
+        }
+
+        return false;
+    }
+
+    private void mapStoreId(Node node, int id) {
+        int storeId = node.getStoreId();
+        if (storeId >= idByStoreId.length) {
+            int oldLength = idByStoreId.length;
+            idByStoreId = Arrays.copyOf(idByStoreId, Math.max(storeId + 1, oldLength * 2));
+            Arrays.fill(idByStoreId, oldLength, idByStoreId.length, NO_ID);
+        }
+
+        idByStoreId[storeId] = id;
+    }
+
+    /**
+     * @return the dense id of the node, or -1 if the node is not part of the snapshot
+     */
+    public int indexOf(Node node) {
+        int storeId = node.getStoreId();
+        if (storeId < 0 || storeId >= idByStoreId.length) return NO_ID;
+
+        int id = idByStoreId[storeId];
+        return (id != NO_ID && nodes[id] == node) ? id : NO_ID;
+    }
+
+    public Node getNode(int id) {
+        return nodes[id];
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getDegree(int id) {
+        return degrees[id];
+    }
+
+    /**
+     * @return the i-th neighbour of the node with the specified id
+     */
+    public int getNeighbor(int id, int i) {
+        return neighbors[offsets[id] + i];
+    }
+
+    /**
+     * @return a counter that changes whenever a node or an edge is added, used to invalidate cached results
+     */
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,163 @@
+package metrics;
+
+import org.gephi.graph.api.Node;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of nodes of a CompactGraph stored as one bit per dense id, for the covered and uncovered nodes of the
+ * covering strategies. Adding, removing and testing a node is O(1), the size is kept up to date, and iteration
+ * skips empty words.
+ */
+public class CoverageSet {
+    private final CompactGraph graph;
+    private final NodeView view = new NodeView();
+    private long[] words = new long[0];
+    private int size;
+
+    public CoverageSet(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return a set of every node currently in the graph
+     */
+    public static CoverageSet allNodes(CompactGraph graph) {
+        CoverageSet set = new CoverageSet(graph);
+        int n = graph.getNodeCount();
+
+        set.ensureCapacity(n);
+        Arrays.fill(set.words, 0, n >>> 6, -1L);
+        if ((n & 63) != 0) set.words[n >>> 6] = (1L << n) - 1;
+        set.size = n;
+
+        return set;
+    }
+
+    private void ensureCapacity(int count) {
+        int length = (count + 63) >>> 6;
+        if (length > words.length) {
+            words = Arrays.copyOf(words, Math.max(length, words.length * 2));
+        }
+    }
+
+    /**
+     * @return true if the set didn't contain the node yet
+     */
+    public boolean add(int id) {
+        ensureCapacity(id + 1);
+
+        long bit = 1L << id;
+        int word = id >>> 6;
+        if ((words[word] & bit) != 0) return false;
+
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the set contained the node
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) return false;
+
+        words[id >>> 6] &= ~(1L << id);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && (id >>> 6) < words.length && (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public boolean add(Node node) {
+        return add(graph.indexOf(node));
+    }
+
+    public boolean remove(Node node) {
+        return remove(graph.indexOf(node));
+    }
+
+    public void addAll(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            add(node);
+        }
+    }
+
+    public void removeAll(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            remove(node);
+        }
+    }
+
+    /**
+     * @return the first id in the set that is greater than or equal to from, or -1 if there is none
+     */
+    public int nextId(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) return -1;
+
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == words.length) return -1;
+            bits = words[word];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a read-only view of the set as nodes, in id order. The same view is returned by every call.
+     */
+    public NodeView getNodes() {
+        return view;
+    }
+
+    /**
+     * Read-only view of the set as nodes, without copying them
+     */
+    public class NodeView extends AbstractSet<Node> {
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Node && CoverageSet.this.contains(graph.indexOf((Node) o));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<Node>() {
+                private int next = nextId(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Node next() {
+                    if (next < 0) throw new NoSuchElementException();
+
+                    Node node = graph.getNode(next);
+                    next = nextId(next + 1);
+                    return node;
+                }
+            };
+        }
+    }
+}
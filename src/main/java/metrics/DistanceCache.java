@@ -0,0 +1,180 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Distance between every pair of nodes of an input graph, one byte per pair, stored in a file next to the graph
+ * and memory-mapped in chunks of rows. Every run over the same graph maps the file instead of searching again,
+ * and the rows stay off-heap in the page cache, shared between runs.
+ *
+ * The header holds a fingerprint of the node ids and adjacency of the graph, so a file written for another
+ * version of the graph is detected and rebuilt.
+ */
+public class DistanceCache {
+    private static final int MAGIC = 0x54445354;        // "TDST"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int UNREACHABLE_BYTE = 0xFF;
+    private static final int MAX_DISTANCE = 0xFE;      // Largest distance that fits in a byte
+
+    private final int nodeCount;
+    private final int rowsPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    private DistanceCache(int nodeCount, int rowsPerChunk, MappedByteBuffer[] chunks) {
+        this.nodeCount = nodeCount;
+        this.rowsPerChunk = rowsPerChunk;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Map the distances of the graph from the file, writing the file first if it doesn't match the graph
+     * @param graph: the input graph, before the newcomer is added
+     * @param file: location of the cache, usually next to the graph file
+     * @return the cached distances, or null if the graph has a distance that doesn't fit in a byte
+     */
+    public static DistanceCache open(CompactGraph graph, Path file) throws IOException {
+        int n = graph.getNodeCount();
+        long fingerprint = getFingerprint(graph);
+
+        if (Files.exists(file)) {
+            DistanceCache cache = map(file, n, fingerprint);
+            if (cache != null) return cache;
+
+            System.out.println("Distance cache doesn't match the graph, rebuilding: " + file);
+        }
+
+        if (!write(graph, file, fingerprint)) {
+            System.out.println("Graph has distances longer than " + MAX_DISTANCE + ", distances are not cached");
+            return null;
+        }
+
+        return map(file, n, fingerprint);
+    }
+
+    /**
+     * @return the mapped distances, or null if the header doesn't match the graph
+     */
+    private static DistanceCache map(Path file, int n, long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            if (channel.size() != HEADER_SIZE + (long) n * n) return null;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != n ||
+                    header.getLong() != fingerprint) {
+                return null;
+            }
+
+            // A mapping can't exceed 2 GB, so large matrices are split into chunks of whole rows
+            int rowsPerChunk = Math.max(1, Integer.MAX_VALUE / Math.max(n, 1));
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(n + rowsPerChunk - 1) / rowsPerChunk];
+
+            for (int i = 0; i < chunks.length; i++) {
+                long firstRow = (long) i * rowsPerChunk;
+                long rows = Math.min(rowsPerChunk, n - firstRow);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRow * n, rows * n);
+            }
+
+            return new DistanceCache(n, rowsPerChunk, chunks);
+        }
+    }
+
+    /**
+     * Search from every node and write the rows to a temporary file, which replaces the cache once complete.
+     * The temporary file is deleted if the cache isn't complete, whether a distance didn't fit or the write failed.
+     * @return false if a distance doesn't fit in a byte
+     */
+    private static boolean write(CompactGraph graph, Path file, long fingerprint) throws IOException {
+        int n = graph.getNodeCount();
+        // Unique name, another run may be writing the cache of the same graph at the same time
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+        boolean fits = true;
+        boolean moved = false;
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putLong(fingerprint);
+                header.position(HEADER_SIZE);
+                header.flip();
+                channel.write(header);
+
+                ShortestPathSweep sweep = new ShortestPathSweep(graph);
+                ByteBuffer row = ByteBuffer.allocate(n);
+
+                rows:
+                for (int source = 0; source < n; source++) {
+                    sweep.search(source);
+                    row.clear();
+
+                    for (int target = 0; target < n; target++) {
+                        int d = sweep.distances[target];
+                        if (d > MAX_DISTANCE) {
+                            fits = false;
+                            break rows;
+                        }
+
+                        row.put((byte) (d < 0 ? UNREACHABLE_BYTE : d));
+                    }
+
+                    row.flip();
+                    while (row.hasRemaining()) channel.write(row);
+                }
+            }
+
+            if (!fits) return false;
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+            return true;
+        } finally {
+            if (!moved) Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Hash of the node ids in dense order and of every adjacency list, so any change to the graph is noticed
+     */
+    private static long getFingerprint(CompactGraph graph) {
+        long hash = 17;
+
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            hash = 31 * hash + graph.getNode(v).getId().hashCode();
+            hash = 31 * hash + graph.getDegree(v);
+
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                hash = 31 * hash + graph.getNeighbor(v, i);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * @return distance between the two nodes of the input graph, or -1 if there is no path between them
+     */
+    public int getDistance(int source, int target) {
+        MappedByteBuffer chunk = chunks[source / rowsPerChunk];
+        int d = chunk.get((source % rowsPerChunk) * nodeCount + target) & 0xFF;
+
+        return d == UNREACHABLE_BYTE ? -1 : d;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
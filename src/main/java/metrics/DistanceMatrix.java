@@ -0,0 +1,193 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the distance between every pair of nodes between rounds, so that closeness, eccentricity, diameter,
+ * radius and average path length can be updated after a single edge insertion instead of recomputed.
+ *
+ * Adding the edge (u, w) can only shrink distances: d'(s, t) = min(d(s, t), d(s, u) + 1 + d(w, t)) when s is
+ * closer to u than to w, and the other way around otherwise. A source that is as far from u as from w gains
+ * nothing from the edge, so each insertion costs at most one pass over the matrix.
+ *
+ * The matrix takes 4 bytes for every pair of nodes, graphs of more than MAX_NODES nodes are too large for it.
+ */
+public class DistanceMatrix {
+    public static final int MAX_NODES = 20000;
+    private static final int UNREACHABLE = -1;
+
+    private final CompactGraph graph;
+    private int nodeCount;
+    private int[][] distances;
+
+    // Per source results, updated with the rows
+    private long[] distanceSums;
+    private int[] reachable;
+    private int[] eccentricity;
+
+    private int updatedSources;     // Number of rows that changed for the last edge
+
+    /**
+     * Search from every node of the graph and store the distances
+     * @throws IllegalArgumentException if the graph has more than MAX_NODES nodes
+     */
+    public DistanceMatrix(CompactGraph graph) {
+        if (graph.getNodeCount() > MAX_NODES) {
+            throw new IllegalArgumentException("Graph is too large to keep every distance: " +
+                    graph.getNodeCount() + " nodes");
+        }
+
+        this.graph = graph;
+        this.nodeCount = graph.getNodeCount();
+
+        distances = new int[nodeCount][];
+        distanceSums = new long[nodeCount];
+        reachable = new int[nodeCount];
+        eccentricity = new int[nodeCount];
+
+        ShortestPathSweep sweep = new ShortestPathSweep(graph);
+        for (int source = 0; source < nodeCount; source++) {
+            sweep.search(source);
+            distances[source] = sweep.distances.clone();
+            summarize(source);
+        }
+    }
+
+    /**
+     * Grow every row when nodes were added to the graph. New nodes start isolated.
+     */
+    private void synchronizeNodes() {
+        int newCount = graph.getNodeCount();
+        if (newCount == nodeCount) return;
+
+        distances = Arrays.copyOf(distances, newCount);
+        distanceSums = Arrays.copyOf(distanceSums, newCount);
+        reachable = Arrays.copyOf(reachable, newCount);
+        eccentricity = Arrays.copyOf(eccentricity, newCount);
+
+        for (int source = 0; source < newCount; source++) {
+            if (source < nodeCount) {
+                distances[source] = Arrays.copyOf(distances[source], newCount);
+                Arrays.fill(distances[source], nodeCount, newCount, UNREACHABLE);
+            } else {
+                distances[source] = new int[newCount];
+                Arrays.fill(distances[source], UNREACHABLE);
+                distances[source][source] = 0;
+            }
+        }
+
+        nodeCount = newCount;
+    }
+
+    /**
+     * Update the distances after the edge (u, w) was added to the graph.
+     * Must be called once for every edge, right after it was added.
+     */
+    public void edgeAdded(int u, int w) {
+        synchronizeNodes();
+        updatedSources = 0;
+
+        // Rows of u and w change during the update, the new paths go through their old distances
+        int[] fromU = distances[u].clone();
+        int[] fromW = distances[w].clone();
+
+        for (int source = 0; source < nodeCount; source++) {
+            int[] row = distances[source];
+            int toU = row[u];
+            int toW = row[w];
+            if (toU == toW) continue;   // The new edge isn't on any shortest path from this source
+
+            // Only paths entering the edge from the closer end can be shorter
+            boolean viaU = toW == UNREACHABLE || (toU != UNREACHABLE && toU < toW);
+            int[] beyond = viaU ? fromW : fromU;
+            int offset = (viaU ? toU : toW) + 1;
+
+            boolean changed = false;
+            for (int t = 0; t < nodeCount; t++) {
+                if (beyond[t] == UNREACHABLE) continue;
+
+                int distance = offset + beyond[t];
+                if (row[t] == UNREACHABLE || distance < row[t]) {
+                    row[t] = distance;
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                summarize(source);
+                updatedSources++;
+            }
+        }
+    }
+
+    /**
+     * Recompute the distance sum, reachable count and eccentricity of a source from its row
+     */
+    private void summarize(int source) {
+        int[] row = distances[source];
+        long sum = 0;
+        int count = 0;
+        int max = 0;
+
+        for (int t = 0; t < nodeCount; t++) {
+            int d = row[t];
+            if (d <= 0) continue;     // Unreachable, or the source itself
+
+            sum += d;
+            count++;
+            if (d > max) max = d;
+        }
+
+        distanceSums[source] = sum;
+        reachable[source] = count;
+        eccentricity[source] = max;
+    }
+
+    /**
+     * @return distance between the two nodes, or -1 if there is no path between them
+     */
+    public int getDistance(int source, int target) {
+        synchronizeNodes();
+        return distances[source][target];
+    }
+
+    /**
+     * @return closeness, eccentricity, diameter, radius and average path length of the current graph.
+     * Betweenness and eigenvector centrality are left at 0.
+     */
+    public GraphMetrics getMetrics() {
+        synchronizeNodes();
+
+        GraphMetrics metrics = new GraphMetrics(nodeCount);
+        long distanceSum = 0;
+        long reachablePairs = 0;
+        int diameter = 0;
+        int radius = Integer.MAX_VALUE;
+
+        for (int source = 0; source < nodeCount; source++) {
+            long sum = distanceSums[source];
+            int count = reachable[source];
+
+            metrics.closeness[source] = (count == 0 || sum == 0) ? 0 : count / (double) sum;
+            metrics.eccentricity[source] = eccentricity[source];
+
+            distanceSum += sum;
+            reachablePairs += count;
+            diameter = Math.max(diameter, eccentricity[source]);
+            radius = Math.min(radius, eccentricity[source]);
+        }
+
+        metrics.pathLength = (double) distanceSum / reachablePairs;
+        metrics.diameter = diameter;
+        metrics.radius = radius;
+
+        return metrics;
+    }
+
+    /**
+     * @return number of rows that changed after the last edge insertion
+     */
+    public int getUpdatedSources() {
+        return updatedSources;
+    }
+}
@@ -0,0 +1,74 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Answers distance questions on the input graph plus the newcomer, from the cached distances of the input graph.
+ * Every edge added by a strategy is incident to the newcomer, so a shortest path uses the newcomer at most once:
+ * d(s, t) = min(d0(s, t), d(s, newcomer) + d(newcomer, t)), where d0 is the cached distance and the distance from
+ * the newcomer is kept up to date as its edges are added.
+ */
+public class DistanceOracle {
+    private final DistanceCache cache;
+    private final int newcomer;
+    private final int[] fromNewcomer;     // Distance from the newcomer to every node of the input graph, -1 if none
+
+    /**
+     * @param cache: distances of the input graph
+     * @param newcomer: dense id of the newcomer, the only node added after the cache was opened
+     */
+    public DistanceOracle(DistanceCache cache, int newcomer) {
+        if (newcomer != cache.getNodeCount()) {
+            throw new IllegalArgumentException("Only the newcomer may be added after the distances were cached");
+        }
+
+        this.cache = cache;
+        this.newcomer = newcomer;
+        this.fromNewcomer = new int[cache.getNodeCount()];
+        Arrays.fill(fromNewcomer, -1);
+    }
+
+    /**
+     * Update the distances from the newcomer after it was connected to the target
+     */
+    public void edgeAdded(int target) {
+        for (int v = 0; v < fromNewcomer.length; v++) {
+            int d = cache.getDistance(target, v);
+            if (d < 0) continue;
+
+            if (fromNewcomer[v] < 0 || d + 1 < fromNewcomer[v]) {
+                fromNewcomer[v] = d + 1;
+            }
+        }
+    }
+
+    /**
+     * @return distance between the two nodes, or -1 if there is no path between them
+     */
+    public int getDistance(int source, int target) {
+        if (source == target) return 0;
+        if (source == newcomer) return fromNewcomer[target];
+        if (target == newcomer) return fromNewcomer[source];
+
+        int direct = cache.getDistance(source, target);
+        if (fromNewcomer[source] < 0 || fromNewcomer[target] < 0) return direct;
+
+        int throughNewcomer = fromNewcomer[source] + fromNewcomer[target];
+        return (direct < 0 || throughNewcomer < direct) ? throughNewcomer : direct;
+    }
+
+    /**
+     * @return largest finite distance from the newcomer, 0 if it has no edges yet
+     */
+    public int getNewcomerEccentricity() {
+        int max = 0;
+        for (int d : fromNewcomer) {
+            max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    public int getNodeCount() {
+        return fromNewcomer.length + 1;
+    }
+}
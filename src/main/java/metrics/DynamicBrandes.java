@@ -0,0 +1,193 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the distances and dependencies of every source between rounds, so that betweenness, closeness and
+ * eccentricity can be updated after a single edge insertion instead of recomputed from scratch.
+ *
+ * When the edge (u, v) is added, the shortest paths from a source s only change if d(s, u) != d(s, v).
+ * Every such source is searched again and its row of dependencies replaced, every other source is left untouched.
+ * Betweenness is then summed from the rows in the same order as a full pass of the MetricEngine, rather than
+ * updated by subtracting the old dependencies, so it is equal to a full recompute down to the last bit and ties
+ * between nodes stay ties.
+ *
+ * Both matrices take 12 bytes for every pair of nodes, graphs of more than MAX_NODES nodes are too large for them.
+ */
+public class DynamicBrandes {
+    public static final int MAX_NODES = 10000;
+    private static final int UNREACHABLE = -1;
+
+    private final CompactGraph graph;
+    private ShortestPathSweep sweep;    // Rebuilt when the graph gets a new node
+    private int nodeCount;
+
+    // Distances and dependencies of every source
+    private int[][] distances;
+    private double[][] dependencies;
+    private double[] betweenness;       // Raw betweenness, summed from the dependencies
+
+    // Per source results
+    private double[] closeness;
+    private double[] eccentricity;
+    private double[] distanceSums;
+    private int[] reachable;
+
+    private int updatedSources;     // Number of sources searched again for the last edge
+
+    /**
+     * Run a full Brandes pass on the graph and store the distances and dependencies of every source
+     * @throws IllegalArgumentException if the graph has more than MAX_NODES nodes
+     */
+    public DynamicBrandes(CompactGraph graph) {
+        if (graph.getNodeCount() > MAX_NODES) {
+            throw new IllegalArgumentException("Graph is too large to keep every shortest path: " +
+                    graph.getNodeCount() + " nodes");
+        }
+
+        this.graph = graph;
+        this.nodeCount = graph.getNodeCount();
+        this.sweep = new ShortestPathSweep(graph);
+
+        distances = new int[nodeCount][];
+        dependencies = new double[nodeCount][];
+        betweenness = new double[nodeCount];
+        closeness = new double[nodeCount];
+        eccentricity = new double[nodeCount];
+        distanceSums = new double[nodeCount];
+        reachable = new int[nodeCount];
+
+        for (int source = 0; source < nodeCount; source++) {
+            distances[source] = new int[nodeCount];
+            dependencies[source] = new double[nodeCount];
+            searchFrom(source);
+        }
+        sumBetweenness();
+    }
+
+    /**
+     * Grow every row when nodes were added to the graph. New nodes start isolated.
+     */
+    private void synchronizeNodes() {
+        int newCount = graph.getNodeCount();
+        if (newCount == nodeCount) return;
+
+        sweep = new ShortestPathSweep(graph);
+
+        distances = Arrays.copyOf(distances, newCount);
+        dependencies = Arrays.copyOf(dependencies, newCount);
+        betweenness = Arrays.copyOf(betweenness, newCount);
+        closeness = Arrays.copyOf(closeness, newCount);
+        eccentricity = Arrays.copyOf(eccentricity, newCount);
+        distanceSums = Arrays.copyOf(distanceSums, newCount);
+        reachable = Arrays.copyOf(reachable, newCount);
+
+        for (int source = 0; source < newCount; source++) {
+            if (source < nodeCount) {
+                distances[source] = Arrays.copyOf(distances[source], newCount);
+                dependencies[source] = Arrays.copyOf(dependencies[source], newCount);
+                Arrays.fill(distances[source], nodeCount, newCount, UNREACHABLE);
+            } else {
+                distances[source] = new int[newCount];
+                dependencies[source] = new double[newCount];
+                Arrays.fill(distances[source], UNREACHABLE);
+                distances[source][source] = 0;
+            }
+        }
+
+        nodeCount = newCount;
+        sumBetweenness();   // The order of the sum depends on the number of nodes
+    }
+
+    /**
+     * Update the shortest paths after the edge (u, v) was added to the graph.
+     * Must be called once for every edge, right after it was added.
+     */
+    public void edgeAdded(int u, int v) {
+        synchronizeNodes();
+        updatedSources = 0;
+
+        for (int source = 0; source < nodeCount; source++) {
+            int[] row = distances[source];
+            if (row[u] == row[v]) continue;     // The new edge isn't on any shortest path from this source
+
+            searchFrom(source);
+            updatedSources++;
+        }
+
+        if (updatedSources > 0) sumBetweenness();
+    }
+
+    /**
+     * Search from the source on the current graph and store its distances and dependencies
+     */
+    private void searchFrom(int source) {
+        sweep.search(source);
+
+        System.arraycopy(sweep.distances, 0, distances[source], 0, nodeCount);
+
+        int sourceEccentricity = 0;
+        double sum = 0;
+        for (int i = 1; i < sweep.reached; i++) {
+            int d = sweep.distances[sweep.order[i]];
+            sum += d;
+            if (d > sourceEccentricity) sourceEccentricity = d;
+        }
+
+        int count = sweep.reached - 1;
+        distanceSums[source] = sum;
+        reachable[source] = count;
+        eccentricity[source] = sourceEccentricity;
+        closeness[source] = (count == 0 || sum == 0) ? 0 : count / sum;
+
+        sweep.accumulateDependencies(source);
+        sweep.copyDependencies(dependencies[source]);
+    }
+
+    /**
+     * Sum the rows of dependencies into the raw betweenness, in the order of a full pass
+     */
+    private void sumBetweenness() {
+        MetricEngine.sumDependencies(dependencies, nodeCount, betweenness);
+    }
+
+    /**
+     * @return betweenness, closeness, eccentricity, diameter, radius and average path length of the current graph.
+     * Eigenvector centrality is left for the caller to fill in.
+     */
+    public GraphMetrics getMetrics() {
+        synchronizeNodes();
+
+        GraphMetrics metrics = new GraphMetrics(nodeCount);
+
+        System.arraycopy(betweenness, 0, metrics.betweenness, 0, nodeCount);
+        MetricEngine.normalizeBetweenness(metrics.betweenness, nodeCount);
+        System.arraycopy(closeness, 0, metrics.closeness, 0, nodeCount);
+        System.arraycopy(eccentricity, 0, metrics.eccentricity, 0, nodeCount);
+
+        double distanceSum = 0;
+        double reachablePairs = 0;
+        double diameter = 0;
+        double radius = Integer.MAX_VALUE;
+
+        for (int source = 0; source < nodeCount; source++) {
+            distanceSum += distanceSums[source];
+            reachablePairs += reachable[source];
+            diameter = Math.max(diameter, eccentricity[source]);
+            radius = Math.min(radius, eccentricity[source]);
+        }
+
+        metrics.pathLength = distanceSum / reachablePairs;
+        metrics.diameter = diameter;
+        metrics.radius = radius;
+
+        return metrics;
+    }
+
+    /**
+     * @return number of sources that had to be searched again after the last edge insertion
+     */
+    public int getUpdatedSources() {
+        return updatedSources;
+    }
+}
@@ -0,0 +1,115 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Streaming reader for edge lists such as the SNAP graphs, one edge per line with the ids separated by whitespace,
+ * commas or semicolons. Like Gephi's ImporterCSV, a line with more than two ids is read as an adjacency list:
+ * the first node is connected to every other node of the line. Lines starting with '#' or '%' are comments.
+ *
+ * The file is read in fixed-size chunks and parsed byte by byte straight into a SnapshotBuilder, so only the graph
+ * itself is kept in memory. Decimal ids are parsed into numbers without creating a string per token.
+ */
+public class EdgeListReader {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_NUMERIC_DIGITS = 18;
+
+    private final SnapshotBuilder builder = new SnapshotBuilder();
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private int lineStart = -1;     // Dense id of the first node of the current line
+    private boolean comment;
+
+    private EdgeListReader() {
+    }
+
+    /**
+     * @return the snapshot of the graph in the file
+     */
+    public static GraphSnapshot read(Path file) throws IOException {
+        EdgeListReader reader = new EdgeListReader();
+        reader.parse(file);
+
+        SnapshotBuilder builder = reader.builder;
+        System.out.println("Read " + builder.getNodeCount() + " nodes and " + builder.getEdgeCount() + " edges (" +
+                builder.getDuplicateEdges() + " duplicates merged, " + builder.getSelfLoops() + " self loops) from: " +
+                file);
+
+        return builder.build();
+    }
+
+    private void parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+
+            while (channel.read(chunk) != -1) {
+                chunk.flip();
+                byte[] bytes = chunk.array();
+                for (int i = chunk.position(), end = chunk.limit(); i < end; i++) {
+                    accept(bytes[i]);
+                }
+                chunk.clear();
+            }
+
+            accept((byte) '\n');        // The last line may not end with a newline
+        }
+    }
+
+    private void accept(byte b) {
+        if (b == '\n' || b == '\r') {
+            endToken();
+            lineStart = -1;
+            comment = false;
+        } else if (comment) {
+            return;
+        } else if (b == ' ' || b == '\t' || b == ',' || b == ';') {
+            endToken();
+        } else if (b == '"') {
+            return;     // Quoted ids are read without their quotes
+        } else if ((b == '#' || b == '%') && tokenLength == 0 && lineStart == -1) {
+            comment = true;
+        } else {
+            if (tokenLength == token.length) token = Arrays.copyOf(token, token.length * 2);
+            token[tokenLength++] = b;
+        }
+    }
+
+    private void endToken() {
+        if (tokenLength == 0) return;
+
+        int node = addNode();
+        tokenLength = 0;
+
+        if (lineStart == -1) {
+            lineStart = node;
+        } else {
+            builder.addEdge(lineStart, node);
+        }
+    }
+
+    /**
+     * @return dense id of the node of the current token
+     */
+    private int addNode() {
+        if (tokenLength <= MAX_NUMERIC_DIGITS && (tokenLength == 1 || token[0] != '0')) {
+            long value = 0;
+            int i = 0;
+            for (; i < tokenLength; i++) {
+                int digit = token[i] - '0';
+                if (digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+            }
+
+            if (i == tokenLength) return builder.addNode(value);
+        }
+
+        return builder.addNode(new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+    }
+}
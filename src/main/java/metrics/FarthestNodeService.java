@@ -0,0 +1,155 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Finds the nodes farthest from a source with an O(n + m) breadth-first search on the CompactGraph.
+ *
+ * The BFS layers of the last source are kept until an edge that changes them is added, so repeated questions about
+ * the same source don't search again. Every edge added to the graph must be passed to edgeAdded.
+ *
+ * It also estimates the periphery and the centre by a double sweep: the node farthest from the node farthest from a
+ * start node is usually peripheral, and the node in the middle of a shortest path between the two is usually
+ * central. BrokerExpress takes the farthest node as its end node, and Strategy.getRadius estimates the radius by the
+ * double sweep in approximate mode.
+ */
+public class FarthestNodeService {
+    private static final int UNREACHABLE = -1;
+
+    private final CompactGraph graph;
+    private int[] distances = new int[0];
+    private int[] order = new int[0];       // Nodes in BFS order, layer by layer
+    private int reached;
+
+    private int cachedSource = -1;
+
+    public FarthestNodeService(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Keep the cached layers unless the edge (u, v), which was just added to the graph, changes them. An edge between
+     * two nodes at the same distance from the source, or two nodes it doesn't reach, is on none of its shortest paths
+     * and the search still visits the nodes in the same order.
+     */
+    public void edgeAdded(int u, int v) {
+        if (cachedSource >= 0 && getCachedDistance(u) != getCachedDistance(v)) {
+            cachedSource = -1;
+        }
+    }
+
+    private int getCachedDistance(int node) {
+        return node < distances.length ? distances[node] : UNREACHABLE;    // Nodes added since are isolated
+    }
+
+    /**
+     * Search from the source, unless its layers are cached
+     */
+    private void search(int source) {
+        int n = graph.getNodeCount();
+        if (source == cachedSource && n <= distances.length) return;
+
+        if (distances.length < n) {
+            distances = new int[n];
+            order = new int[n];
+            Arrays.fill(distances, UNREACHABLE);
+            reached = 0;
+        }
+
+        for (int i = 0; i < reached; i++) {
+            distances[order[i]] = UNREACHABLE;
+        }
+
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        distances[source] = 0;
+        order[0] = source;
+        reached = 1;
+
+        for (int head = 0; head < reached; head++) {
+            int v = order[head];
+            int nextDistance = distances[v] + 1;
+
+            for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                int w = neighbors[k];
+                if (distances[w] == UNREACHABLE) {
+                    distances[w] = nextDistance;
+                    order[reached++] = w;
+                }
+            }
+        }
+
+        cachedSource = source;
+    }
+
+    /**
+     * @return the node at the largest distance from the source, the one with the highest dense id (the last one
+     * imported) if there are several, so the choice doesn't depend on the order of the neighbours
+     */
+    public int getFarthest(int source) {
+        search(source);
+
+        int farthest = order[reached - 1];
+        int maxDistance = distances[farthest];
+
+        // The last layer is at the end of the order
+        for (int i = reached - 2; i >= 0 && distances[order[i]] == maxDistance; i--) {
+            farthest = Math.max(farthest, order[i]);
+        }
+
+        return farthest;
+    }
+
+    /**
+     * @return largest distance from the source to a node it can reach
+     */
+    public int getEccentricity(int source) {
+        search(source);
+        return distances[order[reached - 1]];
+    }
+
+    /**
+     * @return distance between the source and the target, or -1 if there is no path between them
+     */
+    public int getDistance(int source, int target) {
+        search(source);
+        return distances[target];
+    }
+
+    /**
+     * Double sweep from the start node
+     * @return the node farthest from the start node, and the node farthest from that one
+     */
+    public int[] getPeripheralPair(int start) {
+        int first = getFarthest(start);
+        int second = getFarthest(first);
+
+        return new int[]{first, second};
+    }
+
+    /**
+     * Only the component of the start node is searched
+     * @return eccentricity of the node in the middle of a shortest path between the two nodes of the double sweep
+     * from the start node, an upper bound on the radius of the component that is usually close to it
+     */
+    public int estimateRadius(int start) {
+        int[] pair = getPeripheralPair(start);
+        int middle = pair[1];
+        int middleDistance = distances[middle] / 2;
+
+        // The layers of the first node of the pair are cached, step back from the second one to the middle layer
+        while (distances[middle] > middleDistance) {
+            for (int k = graph.offsets[middle], end = k + graph.degrees[middle]; k < end; k++) {
+                int w = graph.neighbors[k];
+                if (distances[w] == distances[middle] - 1) {
+                    middle = w;
+                    break;
+                }
+            }
+        }
+
+        return getEccentricity(middle);
+    }
+}
@@ -0,0 +1,89 @@
+package metrics;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streaming StAX reader for GraphML, which adds every node and edge to a SnapshotBuilder as soon as its element is
+ * read instead of building a document or an import container first.
+ *
+ * Only the structure of the graph and the node labels are read. Every edge is undirected whatever the file
+ * declares, like the import forces it, and an edge to an undeclared node creates that node.
+ */
+public class GraphMLReader {
+    private final SnapshotBuilder builder = new SnapshotBuilder();
+    private String labelKey;        // Id of the <key> that holds node labels, if the file has one
+
+    private GraphMLReader() {
+    }
+
+    /**
+     * @return the snapshot of the graph in the file
+     */
+    public static GraphSnapshot read(Path file) throws IOException {
+        GraphMLReader reader = new GraphMLReader();
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            reader.parse(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid GraphML: " + file, e);
+        }
+
+        SnapshotBuilder builder = reader.builder;
+        System.out.println("Read " + builder.getNodeCount() + " nodes and " + builder.getEdgeCount() + " edges (" +
+                builder.getDuplicateEdges() + " duplicates merged, " + builder.getSelfLoops() + " self loops) from: " +
+                file);
+
+        return builder.build();
+    }
+
+    private void parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        XMLStreamReader xml = factory.createXMLStreamReader(in);
+        int node = -1;      // Dense id of the <node> being read
+
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "key":
+                            if ("label".equalsIgnoreCase(xml.getAttributeValue(null, "attr.name")) &&
+                                    !"edge".equals(xml.getAttributeValue(null, "for"))) {
+                                labelKey = xml.getAttributeValue(null, "id");
+                            }
+                            break;
+                        case "node":
+                            node = builder.addNode(xml.getAttributeValue(null, "id"));
+                            break;
+                        case "edge":
+                            int source = builder.addNode(xml.getAttributeValue(null, "source"));
+                            int target = builder.addNode(xml.getAttributeValue(null, "target"));
+                            builder.addEdge(source, target);
+                            break;
+                        case "data":
+                            if (node != -1 && labelKey != null && labelKey.equals(xml.getAttributeValue(null, "key"))) {
+                                builder.setLabel(node, xml.getElementText().trim());
+                            }
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("node")) {
+                    node = -1;
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+}
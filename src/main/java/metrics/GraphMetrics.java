@@ -0,0 +1,67 @@
+package metrics;
+
+/**
+ * Centralities and distance metrics of a CompactGraph, stored in primitive arrays indexed by dense node id.
+ * Values follow the conventions of Gephi's GraphDistance (undirected, normalized) and EigenvectorCentrality,
+ * so they can be exported in place of the Gephi columns.
+ */
+public class GraphMetrics {
+    final double[] betweenness;
+    final double[] closeness;
+    final double[] eccentricity;
+    final double[] eigenvector;
+
+    double pathLength;
+    double diameter;
+    double radius;
+
+    GraphMetrics(int nodeCount) {
+        betweenness = new double[nodeCount];
+        closeness = new double[nodeCount];
+        eccentricity = new double[nodeCount];
+        eigenvector = new double[nodeCount];
+    }
+
+    /**
+     * Nodes added after the metrics were computed (e.g. the newcomer when centralities are not updated every round)
+     * read as 0, which is the default value of the Gephi columns.
+     */
+    private static double valueOf(double[] values, int id) {
+        return id >= 0 && id < values.length ? values[id] : 0.0;
+    }
+
+    public double getBetweenness(int id) {
+        return valueOf(betweenness, id);
+    }
+
+    public double getCloseness(int id) {
+        return valueOf(closeness, id);
+    }
+
+    public double getEccentricity(int id) {
+        return valueOf(eccentricity, id);
+    }
+
+    public double getEigenvector(int id) {
+        return valueOf(eigenvector, id);
+    }
+
+    /**
+     * @return number of nodes the metrics were computed for
+     */
+    public int getNodeCount() {
+        return betweenness.length;
+    }
+
+    public double getPathLength() {
+        return pathLength;
+    }
+
+    public double getDiameter() {
+        return diameter;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,164 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Keeps the snapshots of recently loaded graphs on the heap, so every strategy that runs on the same graph loads
+ * it from memory instead of reading or parsing the file again.
+ *
+ * Graphs are keyed by their path and a hash of the file's content, so an edited file is loaded again. The total
+ * estimated size of the snapshots is kept under a memory budget by evicting the least recently used ones.
+ * A graph that several threads ask for at the same time is only loaded once, the other threads wait for it.
+ */
+public class GraphPool {
+    private final long budget;
+    private final Map<Key, FutureTask<GraphSnapshot>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, Long> sizes = new HashMap<>();
+    private long size;
+    private int hits;
+    private int misses;
+
+    /**
+     * Loads a snapshot of the graph, only called when the graph isn't in the pool
+     */
+    public interface Loader {
+        GraphSnapshot load() throws Exception;
+    }
+
+    /**
+     * @param budget: number of bytes the snapshots can take on the heap
+     */
+    public GraphPool(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param file: the graph file
+     * @param loader: loads the graph if it isn't in the pool
+     * @return the snapshot of the graph, shared with every other caller that asks for the same graph
+     */
+    public GraphSnapshot get(Path file, Loader loader) throws Exception {
+        Key key = new Key(file.toAbsolutePath().normalize(), hash(file));
+        FutureTask<GraphSnapshot> task;
+        boolean owner = false;
+
+        synchronized (this) {
+            task = entries.get(key);
+            if (task == null) {
+                task = new FutureTask<>(loader::load);
+                entries.put(key, task);
+                owner = true;
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+
+        if (owner) task.run();
+
+        GraphSnapshot snapshot;
+        try {
+            snapshot = task.get();
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                entries.remove(key, task);
+            }
+            throw e;
+        }
+
+        if (owner) admit(key, task, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Count the snapshot against the budget and evict the least recently used snapshots until it fits.
+     * A snapshot larger than the whole budget is used once and not kept.
+     */
+    private synchronized void admit(Key key, FutureTask<GraphSnapshot> task, GraphSnapshot snapshot) {
+        long snapshotSize = snapshot.getMemorySize();
+        if (snapshotSize > budget) {
+            entries.remove(key, task);
+            return;
+        }
+
+        sizes.put(key, snapshotSize);
+        size += snapshotSize;
+
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (size > budget && eldest.hasNext()) {
+            Key candidate = eldest.next();
+            if (candidate.equals(key) || !sizes.containsKey(candidate)) continue;     // Just added or still loading
+
+            size -= sizes.remove(candidate);
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return CRC-32 of the file's content
+     */
+    private static long hash(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long length = channel.size();
+            for (long position = 0; position < length; position += Integer.MAX_VALUE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, length - position));
+                crc.update(chunk);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return estimated number of bytes taken by the snapshots in the pool
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private static class Key {
+        final Path path;
+        final long hash;
+
+        Key(Path path, long hash) {
+            this.path = path;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return path.equals(other.path) && hash == other.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, hash);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package metrics;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An imported graph stored in a compact binary file, so later runs can load it without parsing the original file
+ * again. The file holds a header, the id and label of every node in dense order, the edges in the order they were
+ * imported, and the CSR arrays of the CompactGraph built from them. It is memory-mapped and its sections are read
+ * in bulk when opened.
+ *
+ * The header records the size and modification time of the file the graph was imported from, so a snapshot of an
+ * older version of that file is detected as stale and the graph is imported from the original file instead.
+ *
+ * A snapshot is never modified once created, so one instance can be loaded into several workspaces at the same
+ * time (see GraphPool).
+ *
+ * The nodes of a generated graph are numbered from 0 and have no labels, so their ids aren't kept as strings until
+ * the snapshot is written or loaded.
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x54435352;        // "TCSR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int NO_LABEL = -1;
+
+    private final String[] ids;         // Null if the id of every node is its dense id
+    private final String[] labels;      // Null if no node has a label
+    private final int[] edges;          // Source and target of every edge, in import order
+    private final int[] offsets;        // Start of each neighbour segment, with the number of neighbours at the end
+    private final int[] neighbors;
+
+    GraphSnapshot(String[] ids, String[] labels, int[] edges, int[] offsets, int[] neighbors) {
+        this.ids = ids;
+        this.labels = labels;
+        this.edges = edges;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Take a snapshot of a graph that has just been imported, before anything else is added to it
+     * @param graph: the imported graph
+     * @param compactGraph: the CompactGraph built from the imported graph
+     */
+    public static GraphSnapshot of(Graph graph, CompactGraph compactGraph) {
+        int n = compactGraph.getNodeCount();
+        String[] ids = new String[n];
+        String[] labels = new String[n];
+        for (int v = 0; v < n; v++) {
+            Node node = compactGraph.getNode(v);
+            ids[v] = String.valueOf(node.getId());
+            labels[v] = node.getLabel();
+        }
+
+        Edge[] graphEdges = graph.getEdges().toArray();
+        int[] edges = new int[2 * graphEdges.length];
+        for (int i = 0; i < graphEdges.length; i++) {
+            edges[2 * i] = compactGraph.indexOf(graphEdges[i].getSource());
+            edges[2 * i + 1] = compactGraph.indexOf(graphEdges[i].getTarget());
+        }
+
+        // The neighbour segments are laid out contiguously in dense id order
+        int[] offsets = new int[n + 1];
+        int[] neighbors = new int[2 * compactGraph.getEdgeCount()];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + compactGraph.getDegree(v);
+            System.arraycopy(compactGraph.neighbors, compactGraph.offsets[v], neighbors, offsets[v],
+                    compactGraph.getDegree(v));
+        }
+
+        return new GraphSnapshot(ids, labels, edges, offsets, neighbors);
+    }
+
+    /**
+     * Take a snapshot of a generated graph, whose nodes are numbered from 0 and have no labels
+     * @param nodeCount: number of nodes of the graph
+     * @param edges: source and target of every edge, which must not repeat an edge in either direction
+     */
+    public static GraphSnapshot ofGenerated(int nodeCount, int[] edges) {
+        return build(null, null, nodeCount, edges);
+    }
+
+    /**
+     * Lay out the neighbour segments in dense id order, with the neighbours of each node in edge order.
+     * Self loops are kept as edges but, like in the CompactGraph, they have no neighbour entry.
+     */
+    static GraphSnapshot build(String[] ids, String[] labels, int nodeCount, int[] edges) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edges.length; i += 2) {
+            if (edges[i] == edges[i + 1]) continue;
+            offsets[edges[i] + 1]++;
+            offsets[edges[i + 1] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] neighbors = new int[offsets[nodeCount]];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < edges.length; i += 2) {
+            int source = edges[i];
+            int target = edges[i + 1];
+            if (source == target) continue;
+
+            neighbors[fill[source]++] = target;
+            neighbors[fill[target]++] = source;
+        }
+
+        return new GraphSnapshot(ids, labels, edges, offsets, neighbors);
+    }
+
+    /**
+     * Read a snapshot from the file
+     * @param file: location of the snapshot, usually next to the graph file
+     * @param source: the file the graph was imported from, or null if the snapshot has no source to go stale
+     * @return the snapshot, or null if there is no snapshot or it doesn't match the source
+     */
+    public static GraphSnapshot open(Path file, Path source) throws IOException {
+        if (!Files.exists(file)) return null;
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+
+            long sourceSize = header.getLong();
+            long sourceModified = header.getLong();
+            if (source != null && (sourceSize != Files.size(source) ||
+                    sourceModified != Files.getLastModifiedTime(source).toMillis())) {
+                System.out.println("Graph snapshot doesn't match the graph file, importing it again: " + file);
+                return null;
+            }
+
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            int neighborCount = header.getInt();
+            int nameBytes = header.getInt();
+
+            long edgesStart = HEADER_SIZE + (long) nameBytes;
+            long offsetsStart = edgesStart + 8L * edgeCount;
+            long neighborsStart = offsetsStart + 4L * (nodeCount + 1);
+            if (channel.size() != neighborsStart + 4L * neighborCount) return null;
+
+            // Every section is mapped on its own, so only a single section has to stay under 2 GB
+            ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, nameBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            String[] ids = new String[nodeCount];
+            String[] labels = new String[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                ids[v] = readString(names);
+                labels[v] = readString(names);
+            }
+
+            int[] edges = readInts(channel, edgesStart, 2 * edgeCount);
+            int[] offsets = readInts(channel, offsetsStart, nodeCount + 1);
+            int[] neighbors = readInts(channel, neighborsStart, neighborCount);
+
+            return new GraphSnapshot(ids, labels, edges, offsets, neighbors);
+        }
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        int[] values = new int[count];
+        channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NO_LABEL) return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Add the nodes and edges of the snapshot to the graph of the model
+     * @param graphModel: the model of an empty workspace
+     * @return the CompactGraph of the loaded graph, the same as if it had been built from the imported graph
+     */
+    public CompactGraph load(GraphModel graphModel) {
+        GraphFactory factory = graphModel.factory();
+        Graph graph = graphModel.getUndirectedGraph();
+        Node[] nodes = new Node[getNodeCount()];
+
+        for (int id = 0; id < nodes.length; id++) {
+            Node node = factory.newNode(getId(id));
+            if (labels != null) node.setLabel(labels[id]);
+            graph.addNode(node);
+            nodes[id] = node;
+        }
+
+        for (int i = 0; i < edges.length; i += 2) {
+            Edge edge = factory.newEdge(nodes[edges[i]], nodes[edges[i + 1]], 0, 1f, false);
+            graph.addEdge(edge);
+        }
+
+        // The CompactGraph copies the neighbour array before it adds to it, so the snapshot's array is shared
+        return new CompactGraph(nodes, offsets, neighbors);
+    }
+
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    private String getId(int id) {
+        return ids != null ? ids[id] : Integer.toString(id);
+    }
+
+    public int getEdgeCount() {
+        return edges.length / 2;
+    }
+
+    /**
+     * @return estimated number of bytes the snapshot takes on the heap
+     */
+    public long getMemorySize() {
+        long size = 4L * (edges.length + offsets.length + neighbors.length);
+        if (ids != null) size += 8L * ids.length;
+        if (labels != null) size += 8L * labels.length;
+
+        for (int v = 0; v < getNodeCount(); v++) {
+            if (ids != null) size += 56 + ids[v].length();
+            if (labels != null && labels[v] != null) size += 56 + labels[v].length();
+        }
+
+        return size;
+    }
+
+    /**
+     * Write the snapshot to a temporary file, which replaces the snapshot file once complete
+     * @param file: location of the snapshot
+     * @param source: the file the graph was imported from, or null if it wasn't imported from a file
+     */
+    public void write(Path file, Path source) throws IOException {
+        int n = getNodeCount();
+        long nameBytes = 0;
+
+        // The ids of a generated graph are encoded as they are written, the others are encoded beforehand
+        byte[][] encoded = ids == null ? null : new byte[2 * n][];
+        for (int v = 0; v < n; v++) {
+            if (ids == null) {
+                nameBytes += 8 + getDigits(v);
+                continue;
+            }
+
+            encoded[2 * v] = ids[v].getBytes(StandardCharsets.UTF_8);
+            encoded[2 * v + 1] = labels == null || labels[v] == null ? null :
+                    labels[v].getBytes(StandardCharsets.UTF_8);
+            nameBytes += 8 + encoded[2 * v].length + (encoded[2 * v + 1] == null ? 0 : encoded[2 * v + 1].length);
+        }
+        if (nameBytes > Integer.MAX_VALUE) throw new IOException("Node ids are too long for a snapshot: " + file);
+
+        // Unique name, another run may be writing the snapshot of the same graph at the same time
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.putLong(source == null ? 0 : Files.size(source));
+            header.putLong(source == null ? 0 : Files.getLastModifiedTime(source).toMillis());
+            header.putInt(n).putInt(edges.length / 2).putInt(neighbors.length).putInt((int) nameBytes);
+            header.position(HEADER_SIZE);
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < 2 * n; i++) {
+                byte[] bytes;
+                if (encoded != null) {
+                    bytes = encoded[i];
+                } else {
+                    bytes = i % 2 == 0 ? Integer.toString(i / 2).getBytes(StandardCharsets.UTF_8) : null;
+                }
+
+                int length = bytes == null ? 0 : bytes.length;
+                if (buffer.remaining() < 4 + length) {
+                    buffer.flip();
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                    if (buffer.capacity() < 4 + length) {
+                        buffer = ByteBuffer.allocate(4 + length).order(ByteOrder.LITTLE_ENDIAN);
+                    }
+                }
+
+                buffer.putInt(bytes == null ? NO_LABEL : length);
+                if (bytes != null) buffer.put(bytes);
+            }
+
+            for (int[] array : new int[][]{edges, offsets, neighbors}) {
+                for (int value : array) {
+                    if (buffer.remaining() < 4) {
+                        buffer.flip();
+                        writeFully(channel, buffer);
+                        buffer.clear();
+                    }
+                    buffer.putInt(value);
+                }
+            }
+
+            buffer.flip();
+            writeFully(channel, buffer);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int getDigits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
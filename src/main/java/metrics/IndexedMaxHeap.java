@@ -0,0 +1,159 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Binary max-heap of dense node ids keyed by a score, with the position of every id indexed so that any id can be
+ * removed or re-keyed in O(log n). Ties between equal keys are broken by id, so the selection is deterministic and
+ * matches the scan it replaces: the last candidate in id order for a scan with >=, the first one for a scan with >.
+ */
+public class IndexedMaxHeap {
+    private static final int ABSENT = -1;
+
+    private final boolean preferHigherId;
+    private double[] keys = new double[0];          // Key of every id, only valid while the id is in the heap
+    private int[] positions = new int[0];           // Index of every id in heap[], ABSENT if not in the heap
+    private int[] heap = new int[0];
+    private int size;
+
+    /**
+     * @param preferHigherId: true if the higher id wins a tie, false if the lower id wins
+     */
+    public IndexedMaxHeap(boolean preferHigherId) {
+        this.preferHigherId = preferHigherId;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < positions.length) return;
+
+        int oldLength = positions.length;
+        int length = Math.max(id + 1, oldLength * 2);
+
+        keys = Arrays.copyOf(keys, length);
+        positions = Arrays.copyOf(positions, length);
+        heap = Arrays.copyOf(heap, length);
+        Arrays.fill(positions, oldLength, length, ABSENT);
+    }
+
+    /**
+     * Add the id with the given key, or change its key if it is already in the heap
+     */
+    public void add(int id, double key) {
+        ensureCapacity(id);
+
+        if (positions[id] != ABSENT) {
+            update(id, key);
+            return;
+        }
+
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    public void update(int id, double key) {
+        double oldKey = keys[id];
+        keys[id] = key;
+
+        if (key > oldKey) {
+            siftUp(positions[id]);
+        } else {
+            siftDown(positions[id]);
+        }
+    }
+
+    public void remove(int id) {
+        if (!contains(id)) return;
+
+        int position = positions[id];
+        int last = heap[--size];
+        positions[id] = ABSENT;
+
+        if (position == size) return;
+
+        heap[position] = last;
+        positions[last] = position;
+        siftUp(position);
+        siftDown(positions[last]);
+    }
+
+    /**
+     * Recompute the key of every id in the heap and restore the heap order in O(n)
+     */
+    public void rekey(IntToDoubleFunction key) {
+        for (int i = 0; i < size; i++) {
+            keys[heap[i]] = key.applyAsDouble(heap[i]);
+        }
+
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * @return id with the highest key, or -1 if the heap is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public double getKey(int id) {
+        return keys[id];
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] != ABSENT;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return true if a should be above b in the heap
+     */
+    private boolean ranksAbove(int a, int b) {
+        if (keys[a] != keys[b]) return keys[a] > keys[b];
+        return preferHigherId ? a > b : a < b;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!ranksAbove(id, heap[parent])) break;
+
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) break;
+            if (child + 1 < size && ranksAbove(heap[child + 1], heap[child])) child++;
+            if (!ranksAbove(heap[child], id)) break;
+
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
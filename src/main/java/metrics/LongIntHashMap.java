@@ -0,0 +1,84 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to non-negative int values, without boxing either of them. Used by the
+ * graph readers for numeric node ids and for the set of edges seen so far, which can hold millions of entries.
+ */
+class LongIntHashMap {
+    static final int ABSENT = -1;
+
+    private long[] keys;
+    private int[] values;       // ABSENT marks an empty slot
+    private int size;
+
+    LongIntHashMap() {
+        keys = new long[16];
+        values = new int[16];
+        Arrays.fill(values, ABSENT);
+    }
+
+    /**
+     * @return the value of the key, or -1 if the map doesn't contain it
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+        }
+
+        return ABSENT;
+    }
+
+    /**
+     * Add the key with the value, unless the map already contains the key
+     * @param value: a non-negative value
+     * @return the value the key already had, or -1 if it was added
+     */
+    int putIfAbsent(long key, int value) {
+        if (2 * (size + 1) > keys.length) grow();
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        for (; values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return ABSENT;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, ABSENT);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == ABSENT) continue;
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != ABSENT) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Spread the bits of the key, so that sequential ids don't fill neighbouring slots
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
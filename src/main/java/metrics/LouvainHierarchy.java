@@ -0,0 +1,367 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Louvain community detection on a CompactGraph (resolution 1), keeping every level of the hierarchy it builds.
+ *
+ * A partition with an exact number of communities is derived from the hierarchy instead of searching for a
+ * resolution that happens to produce it: starting from the coarsest level that still has enough communities,
+ * the pair of communities whose merge increases modularity the most (or decreases it the least) is merged
+ * until the requested number is left.
+ *
+ * Nodes are visited in id order without randomization, so the result is deterministic.
+ */
+public class LouvainHierarchy {
+    private static final double MIN_GAIN = 1e-12;      // Smaller improvements don't count as a move
+
+    private final CompactGraph graph;
+    private final double totalStrength;                 // Sum of the degrees, twice the number of edges
+    private final List<int[]> levels = new ArrayList<>();   // Community of every node at each level
+    private final List<Integer> levelCounts = new ArrayList<>();
+    private int merges;
+
+    /**
+     * Run every level of the Louvain method on the graph
+     */
+    public LouvainHierarchy(CompactGraph graph) {
+        this.graph = graph;
+
+        WeightedGraph current = WeightedGraph.of(graph);
+        totalStrength = current.totalStrength();
+
+        int n = graph.getNodeCount();
+        int[] membership = new int[n];
+        for (int v = 0; v < n; v++) membership[v] = v;
+
+        while (true) {
+            int[] communities = current.moveNodes(totalStrength);
+            if (communities == null) break;     // No node moved, the previous level is the last one
+
+            int count = renumber(communities);
+            for (int v = 0; v < n; v++) {
+                membership[v] = communities[membership[v]];
+            }
+
+            levels.add(membership.clone());
+            levelCounts.add(count);
+            current = current.aggregate(communities, count);
+        }
+    }
+
+    /**
+     * Renumber the communities from 0 in order of first appearance
+     * @return number of communities
+     */
+    private static int renumber(int[] communities) {
+        int[] ids = new int[communities.length];
+        Arrays.fill(ids, -1);
+        int count = 0;
+
+        for (int v = 0; v < communities.length; v++) {
+            int c = communities[v];
+            if (ids[c] == -1) ids[c] = count++;
+            communities[v] = ids[c];
+        }
+
+        return count;
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * @return number of communities at the level, from 0 (finest) to getLevelCount() - 1 (coarsest)
+     */
+    public int getCommunityCount(int level) {
+        return levelCounts.get(level);
+    }
+
+    /**
+     * @return number of merges needed by the last call to getPartition
+     */
+    public int getMerges() {
+        return merges;
+    }
+
+    /**
+     * Derive a partition with exactly the requested number of communities, or every node on its own if the graph
+     * doesn't have that many nodes
+     * @param count: the number of communities
+     * @param separate: a node whose community is never merged with another one (e.g. the isolated newcomer),
+     *                or -1
+     * @return community of every node by dense id, numbered from 0
+     */
+    public int[] getPartition(int count, int separate) {
+        int n = graph.getNodeCount();
+        merges = 0;
+
+        // Coarsest level that still has enough communities, or single nodes if no level has
+        int[] membership = new int[n];
+        int communityCount = n;
+        for (int v = 0; v < n; v++) membership[v] = v;
+
+        for (int level = levels.size() - 1; level >= 0; level--) {
+            if (levelCounts.get(level) >= count) {
+                membership = levels.get(level).clone();
+                communityCount = levelCounts.get(level);
+                break;
+            }
+        }
+
+        if (communityCount > count) {
+            mergeCommunities(membership, communityCount, count, separate);
+            renumber(membership);
+        }
+
+        return membership;
+    }
+
+    /**
+     * Greedily merge the pair of communities with the best modularity change until the count is reached
+     */
+    private void mergeCommunities(int[] membership, int communityCount, int count, int separate) {
+        double[] totals = new double[communityCount];
+        List<Map<Integer, Double>> links = new ArrayList<>(communityCount);
+        for (int c = 0; c < communityCount; c++) links.add(new HashMap<>());
+
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            int cv = membership[v];
+            totals[cv] += graph.getDegree(v);
+
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                int w = graph.getNeighbor(v, i);
+                int cw = membership[w];
+                if (v < w && cv != cw) {
+                    links.get(cv).merge(cw, 1.0, Double::sum);
+                    links.get(cw).merge(cv, 1.0, Double::sum);
+                }
+            }
+        }
+
+        boolean[] merged = new boolean[communityCount];
+        int protectedCommunity = separate >= 0 ? membership[separate] : -1;
+        int[] target = new int[communityCount];
+        for (int c = 0; c < communityCount; c++) target[c] = c;
+
+        for (int remaining = communityCount; remaining > count; remaining--) {
+            int bestA = -1, bestB = -1;
+            double bestGain = Double.NEGATIVE_INFINITY;
+
+            // Best pair of linked communities
+            for (int a = 0; a < communityCount; a++) {
+                if (merged[a] || a == protectedCommunity) continue;
+
+                for (Map.Entry<Integer, Double> link : links.get(a).entrySet()) {
+                    int b = link.getKey();
+                    if (b <= a || b == protectedCommunity) continue;
+
+                    double gain = getMergeGain(link.getValue(), totals[a], totals[b]);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+
+            // Two unlinked communities lose the least modularity when their degree totals are the smallest
+            int smallest = -1, secondSmallest = -1;
+            for (int c = 0; c < communityCount; c++) {
+                if (merged[c] || c == protectedCommunity) continue;
+
+                if (smallest == -1 || totals[c] < totals[smallest]) {
+                    secondSmallest = smallest;
+                    smallest = c;
+                } else if (secondSmallest == -1 || totals[c] < totals[secondSmallest]) {
+                    secondSmallest = c;
+                }
+            }
+            if (secondSmallest != -1 && !links.get(smallest).containsKey(secondSmallest)) {
+                double gain = getMergeGain(0, totals[smallest], totals[secondSmallest]);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestA = Math.min(smallest, secondSmallest);
+                    bestB = Math.max(smallest, secondSmallest);
+                }
+            }
+
+            if (bestA == -1) break;     // Only the separate community is left to merge
+
+            // Merge b into a
+            totals[bestA] += totals[bestB];
+            merged[bestB] = true;
+            target[bestB] = bestA;
+            links.get(bestA).remove(bestB);
+
+            for (Map.Entry<Integer, Double> link : links.get(bestB).entrySet()) {
+                int c = link.getKey();
+                if (c == bestA) continue;
+
+                links.get(bestA).merge(c, link.getValue(), Double::sum);
+                links.get(c).remove(bestB);
+                links.get(c).merge(bestA, link.getValue(), Double::sum);
+            }
+            links.get(bestB).clear();
+            merges++;
+        }
+
+        for (int v = 0; v < membership.length; v++) {
+            int c = membership[v];
+            while (target[c] != c) c = target[c];
+            membership[v] = c;
+        }
+    }
+
+    /**
+     * @return change of modularity when two communities are merged, up to a constant factor
+     */
+    private double getMergeGain(double linkWeight, double totalA, double totalB) {
+        if (totalStrength == 0) return 0;
+        return linkWeight - totalA * totalB / totalStrength;
+    }
+
+    /**
+     * Weighted graph of one level, where every node is a community of the previous level
+     */
+    private static class WeightedGraph {
+        final int nodeCount;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        final double[] strengths;      // Weighted degree, including the edges inside the community
+
+        WeightedGraph(int nodeCount, int[] offsets, int[] targets, double[] weights, double[] strengths) {
+            this.nodeCount = nodeCount;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.strengths = strengths;
+        }
+
+        static WeightedGraph of(CompactGraph graph) {
+            int n = graph.getNodeCount();
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) offsets[v + 1] = offsets[v] + graph.getDegree(v);
+
+            int[] targets = new int[offsets[n]];
+            double[] weights = new double[offsets[n]];
+            double[] strengths = new double[n];
+
+            for (int v = 0; v < n; v++) {
+                for (int i = 0; i < graph.getDegree(v); i++) {
+                    targets[offsets[v] + i] = graph.getNeighbor(v, i);
+                    weights[offsets[v] + i] = 1;
+                }
+                strengths[v] = graph.getDegree(v);
+            }
+
+            return new WeightedGraph(n, offsets, targets, weights, strengths);
+        }
+
+        double totalStrength() {
+            double total = 0;
+            for (double strength : strengths) total += strength;
+            return total;
+        }
+
+        /**
+         * Local moving phase: move every node to the neighbouring community with the best modularity gain,
+         * until no node moves
+         * @return community of every node, or null if no node moved at all
+         */
+        int[] moveNodes(double totalStrength) {
+            int[] communities = new int[nodeCount];
+            double[] totals = strengths.clone();
+            for (int v = 0; v < nodeCount; v++) communities[v] = v;
+            if (totalStrength == 0) return null;
+
+            double[] linkWeights = new double[nodeCount];
+            int[] neighborCommunities = new int[nodeCount];
+            boolean anyMove = false;
+            boolean moved = true;
+
+            while (moved) {
+                moved = false;
+
+                for (int v = 0; v < nodeCount; v++) {
+                    int own = communities[v];
+                    int found = 0;
+
+                    // Weight of the links from v to each neighbouring community
+                    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                        int w = targets[k];
+                        if (w == v) continue;
+
+                        int c = communities[w];
+                        if (linkWeights[c] == 0) neighborCommunities[found++] = c;
+                        linkWeights[c] += weights[k];
+                    }
+
+                    totals[own] -= strengths[v];
+
+                    int best = own;
+                    double bestGain = linkWeights[own] - totals[own] * strengths[v] / totalStrength;
+                    for (int i = 0; i < found; i++) {
+                        int c = neighborCommunities[i];
+                        double gain = linkWeights[c] - totals[c] * strengths[v] / totalStrength;
+                        if (gain > bestGain + MIN_GAIN) {
+                            bestGain = gain;
+                            best = c;
+                        }
+                    }
+
+                    totals[best] += strengths[v];
+                    communities[v] = best;
+                    if (best != own) {
+                        moved = true;
+                        anyMove = true;
+                    }
+
+                    for (int i = 0; i < found; i++) linkWeights[neighborCommunities[i]] = 0;
+                }
+            }
+
+            return anyMove ? communities : null;
+        }
+
+        /**
+         * Build the graph of the next level, with one node per community
+         */
+        WeightedGraph aggregate(int[] communities, int count) {
+            double[] newStrengths = new double[count];
+            List<Map<Integer, Double>> links = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) links.add(new HashMap<>());
+
+            for (int v = 0; v < nodeCount; v++) {
+                int cv = communities[v];
+                newStrengths[cv] += strengths[v];
+
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                    int cw = communities[targets[k]];
+                    if (cv != cw) links.get(cv).merge(cw, weights[k], Double::sum);
+                }
+            }
+
+            int[] newOffsets = new int[count + 1];
+            for (int c = 0; c < count; c++) newOffsets[c + 1] = newOffsets[c] + links.get(c).size();
+
+            int[] newTargets = new int[newOffsets[count]];
+            double[] newWeights = new double[newOffsets[count]];
+            for (int c = 0; c < count; c++) {
+                int k = newOffsets[c];
+                for (Map.Entry<Integer, Double> link : links.get(c).entrySet()) {
+                    newTargets[k] = link.getKey();
+                    newWeights[k++] = link.getValue();
+                }
+            }
+
+            return new WeightedGraph(count, newOffsets, newTargets, newWeights, newStrengths);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package metrics;
+
+/**
+ * Metrics that can be computed by the MetricEngine
+ */
+public enum Metric {
+    BETWEENNESS,
+    CLOSENESS,
+    ECCENTRICITY,
+    EIGENVECTOR,
+    PATH_LENGTH,
+    DIAMETER,
+    RADIUS
+}
@@ -0,0 +1,121 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Computes betweenness, closeness, eccentricity, eigenvector centrality, diameter, radius and average path length
+ * directly on a CompactGraph. This replaces running Gephi's GraphDistance and EigenvectorCentrality on the
+ * object based Gephi graph, and produces the same numbers for an undirected graph with normalization enabled.
+ */
+public class MetricEngine {
+    private static final int PARALLEL_THRESHOLD = 128;        // Smaller graphs aren't worth splitting across threads
+
+    private final ParallelBrandes parallelBrandes = new ParallelBrandes();
+    private final BitParallelDistances bitParallelDistances = new BitParallelDistances();
+    private final EigenvectorEngine eigenvectorEngine = new EigenvectorEngine();
+
+    /**
+     * Compute every metric for the current state of the graph
+     * @param graph: the graph to compute the metrics for
+     * @return metrics indexed by the dense ids of the graph
+     */
+    public GraphMetrics compute(CompactGraph graph) {
+        return compute(graph, MetricPlanner.all());
+    }
+
+    /**
+     * Compute only the metrics required by the plan, the others read as 0
+     * @param graph: the graph to compute the metrics for
+     * @param plan: the metrics to compute
+     * @return metrics indexed by the dense ids of the graph
+     */
+    public GraphMetrics compute(CompactGraph graph, MetricPlanner plan) {
+        GraphMetrics metrics = new GraphMetrics(graph.getNodeCount());
+
+        if (plan.needsDistances()) computeDistances(graph, metrics, plan.needsDependencies());
+        if (plan.needsEigenvector()) computeEigenvector(graph, metrics);
+
+        return metrics;
+    }
+
+    /**
+     * All-pairs pass for closeness, eccentricity, diameter, radius and average path length
+     * @param dependencies: true to also accumulate dependencies for betweenness (full Brandes pass)
+     */
+    private void computeDistances(CompactGraph graph, GraphMetrics metrics, boolean dependencies) {
+        int n = graph.getNodeCount();
+
+        // Without betweenness, the path counts aren't needed and 64 searches can run at once
+        if (!dependencies) {
+            bitParallelDistances.compute(graph, metrics);
+            return;
+        }
+
+        if (n >= PARALLEL_THRESHOLD) {
+            parallelBrandes.compute(graph, metrics, dependencies);
+            return;
+        }
+
+        ShortestPathSweep sweep = new ShortestPathSweep(graph);
+
+        for (int source = 0; source < n; source++) {
+            sweep.accumulate(source, metrics.closeness, metrics.eccentricity, dependencies);
+        }
+
+        System.arraycopy(sweep.betweenness, 0, metrics.betweenness, 0, n);
+        normalizeBetweenness(metrics.betweenness, n);
+
+        metrics.pathLength = sweep.distanceSum / sweep.reachablePairs;
+        metrics.diameter = sweep.diameter;
+        metrics.radius = sweep.radius;
+    }
+
+    /**
+     * Sum the dependencies of every source into raw betweenness in the same order as a full pass of this engine,
+     * so that the betweenness is equal to the one compute() gives for the same graph
+     * @param dependencies: dependencies of every source on every node, as added by ShortestPathSweep
+     * @param betweenness: the raw betweenness is written to this array
+     */
+    static void sumDependencies(double[][] dependencies, int n, double[] betweenness) {
+        if (n >= PARALLEL_THRESHOLD) {
+            ParallelBrandes.sumDependencies(dependencies, n, betweenness);
+            return;
+        }
+
+        Arrays.fill(betweenness, 0, n, 0);
+        for (int source = 0; source < n; source++) {
+            double[] row = dependencies[source];
+            for (int i = 0; i < n; i++) {
+                betweenness[i] += row[i];
+            }
+        }
+    }
+
+    /**
+     * Apply the same correction as Gephi: halve the sum since each pair was counted from both ends,
+     * then divide by the number of pairs that don't include the node itself
+     */
+    static void normalizeBetweenness(double[] betweenness, int n) {
+        double pairs = (n - 1.0) * (n - 2.0) / 2;
+
+        for (int i = 0; i < betweenness.length; i++) {
+            betweenness[i] /= 2;
+            betweenness[i] /= pairs;
+        }
+    }
+
+    /**
+     * Eigenvector centrality, warm-started from the vector this engine computed in the previous round
+     * @param metrics: the eigenvector values are written to these metrics
+     */
+    public void computeEigenvector(CompactGraph graph, GraphMetrics metrics) {
+        eigenvectorEngine.compute(graph, metrics.eigenvector);
+    }
+
+    /**
+     * @return number of power iterations needed by each eigenvector computation of this engine
+     */
+    public int[] getEigenvectorIterations() {
+        return eigenvectorEngine.getIterationHistory();
+    }
+}
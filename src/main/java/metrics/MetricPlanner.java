@@ -0,0 +1,58 @@
+package metrics;
+
+import java.util.EnumSet;
+
+/**
+ * Decides which passes over the graph are needed to produce a set of metrics, so that only those are computed:
+ * - betweenness needs the full Brandes pass, including the dependency accumulation
+ * - closeness, eccentricity, path length, diameter and radius only need a breadth-first search from every node
+ * - eigenvector centrality needs the power iteration
+ * An empty set needs no pass at all.
+ */
+public class MetricPlanner {
+    private static final EnumSet<Metric> DISTANCE_METRICS = EnumSet.of(Metric.CLOSENESS, Metric.ECCENTRICITY,
+            Metric.PATH_LENGTH, Metric.DIAMETER, Metric.RADIUS);
+
+    private final EnumSet<Metric> required;
+
+    public MetricPlanner(EnumSet<Metric> required) {
+        this.required = EnumSet.copyOf(required);
+    }
+
+    /**
+     * @return a plan that computes every metric
+     */
+    public static MetricPlanner all() {
+        return new MetricPlanner(EnumSet.allOf(Metric.class));
+    }
+
+    public boolean needsDependencies() {
+        return required.contains(Metric.BETWEENNESS);
+    }
+
+    public boolean needsDistances() {
+        if (needsDependencies()) return true;
+
+        for (Metric metric : required) {
+            if (DISTANCE_METRICS.contains(metric)) return true;
+        }
+        return false;
+    }
+
+    public boolean needsEigenvector() {
+        return required.contains(Metric.EIGENVECTOR);
+    }
+
+    public boolean isEmpty() {
+        return required.isEmpty();
+    }
+
+    public EnumSet<Metric> getRequired() {
+        return EnumSet.copyOf(required);
+    }
+
+    @Override
+    public String toString() {
+        return required.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package metrics;
+
+/**
+ * Computes the betweenness, closeness and eccentricity of the newcomer alone, without recomputing them for every
+ * node. Every edge added by a strategy is incident to the newcomer, so the graph without the newcomer never changes:
+ * its pairwise distances and path counts are computed once and cached.
+ *
+ * Each round, one BFS from the newcomer gives its closeness and eccentricity, as well as d(s, v) and the number of
+ * shortest paths sigma(s, v) between the newcomer v and every node s. For a pair {s, t} of other nodes:
+ * - if d(s, v) + d(v, t) < d(s, t), every shortest path now goes through the newcomer
+ * - if d(s, v) + d(v, t) == d(s, t), a fraction sigma(s, v) * sigma(v, t) / (sigma(s, t) + sigma(s, v) * sigma(v, t))
+ *   of the shortest paths goes through the newcomer
+ * - otherwise the newcomer is on none of them
+ * which sums to the betweenness of a full Brandes pass, normalized the same way. The full pass sums dependencies
+ * source by source rather than pair by pair, so the two only match up to rounding, a few units in the last place.
+ * Closeness and eccentricity are exact.
+ *
+ * A round costs a BFS plus a pass over every pair of nodes the newcomer reaches, O(n^2) rather than the O(n * m) of
+ * a full pass, and the cache takes 12 bytes for every pair of nodes.
+ */
+public class NewcomerCentralities {
+    private static final int UNREACHABLE = -1;
+
+    private final CompactGraph graph;
+    private final int baseCount;    // Number of nodes before the newcomer was added
+
+    // Distances and path counts between every pair of nodes of the graph without the newcomer
+    private final int[][] distances;
+    private final double[][] sigma;
+
+    private ShortestPathSweep sweep;
+    private double betweenness;
+    private double closeness;
+    private double eccentricity;
+
+    /**
+     * Cache the shortest paths of the graph. Must be called before the newcomer is added.
+     */
+    public NewcomerCentralities(CompactGraph graph) {
+        this.graph = graph;
+        this.baseCount = graph.getNodeCount();
+
+        distances = new int[baseCount][];
+        sigma = new double[baseCount][];
+
+        ShortestPathSweep baseSweep = new ShortestPathSweep(graph);
+        for (int source = 0; source < baseCount; source++) {
+            baseSweep.search(source);
+            distances[source] = baseSweep.distances.clone();
+            sigma[source] = baseSweep.sigma.clone();
+        }
+    }
+
+    /**
+     * Compute the centralities of the newcomer for the current state of the graph
+     * @param newcomer: dense id of the newcomer, the only node added since the cache was built
+     */
+    public void compute(int newcomer) {
+        int n = graph.getNodeCount();
+        if (n != baseCount + 1 || newcomer != baseCount) {
+            throw new IllegalStateException("Only the newcomer may be added after the shortest paths were cached");
+        }
+
+        if (sweep == null) sweep = new ShortestPathSweep(graph);
+        sweep.search(newcomer);
+
+        int[] newcomerDistances = sweep.distances;
+        double[] newcomerSigma = sweep.sigma;
+
+        // Closeness and eccentricity follow the same conventions as the full pass
+        int reached = sweep.reached - 1;
+        double sum = 0;
+        int maxDistance = 0;
+        for (int i = 1; i < sweep.reached; i++) {
+            int d = newcomerDistances[sweep.order[i]];
+            sum += d;
+            maxDistance = Math.max(maxDistance, d);
+        }
+        closeness = (reached == 0 || sum == 0) ? 0 : reached / sum;
+        eccentricity = maxDistance;
+
+        // Sum the fraction of shortest paths through the newcomer over every unordered pair of reached nodes
+        double pairSum = 0;
+        for (int i = 1; i < sweep.reached; i++) {
+            int s = sweep.order[i];
+            int[] rowDistances = distances[s];
+            double[] rowSigma = sigma[s];
+            int toNewcomer = newcomerDistances[s];
+
+            for (int j = i + 1; j < sweep.reached; j++) {
+                int t = sweep.order[j];
+                int throughNewcomer = toNewcomer + newcomerDistances[t];
+                int direct = rowDistances[t];
+
+                if (direct == UNREACHABLE || throughNewcomer < direct) {
+                    pairSum += 1;
+                } else if (throughNewcomer == direct) {
+                    double paths = newcomerSigma[s] * newcomerSigma[t];
+                    pairSum += paths / (rowSigma[t] + paths);
+                }
+            }
+        }
+
+        betweenness = pairSum / ((n - 1.0) * (n - 2.0) / 2);
+    }
+
+    public double getBetweenness() {
+        return betweenness;
+    }
+
+    public double getCloseness() {
+        return closeness;
+    }
+
+    public double getEccentricity() {
+        return eccentricity;
+    }
+}
@@ -0,0 +1,136 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Distances from the newcomer to every node, kept up to date as the newcomer gets new edges.
+ *
+ * An edge from the newcomer to x can only lower distances, so instead of searching from the newcomer again,
+ * a breadth-first search from x relaxes the nodes that got closer and stops where distances don't change.
+ * Nodes are also kept in buckets by distance, so the nodes farthest from the newcomer are found without
+ * a traversal.
+ */
+public class NewcomerDistances {
+    private static final int UNREACHABLE = -1;
+    private static final int NONE = -1;
+
+    private final CompactGraph graph;
+    private final int[] distances;
+    private final int[] queue;
+
+    // Doubly linked list of the nodes at each distance, unreachable nodes are in no bucket
+    private final int[] bucketHeads;
+    private final int[] next;
+    private final int[] previous;
+    private int maxDistance;
+
+    /**
+     * Search from the newcomer once, later edges are relaxed by edgeAdded
+     * @param newcomer: dense id of the newcomer, no node may be added to the graph after it
+     */
+    public NewcomerDistances(CompactGraph graph, int newcomer) {
+        this.graph = graph;
+
+        int n = graph.getNodeCount();
+        distances = new int[n];
+        queue = new int[n];
+        bucketHeads = new int[n];
+        next = new int[n];
+        previous = new int[n];
+
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(bucketHeads, NONE);
+
+        setDistance(newcomer, 0);
+        queue[0] = newcomer;
+        relax(1);
+    }
+
+    /**
+     * Update the distances after the newcomer was connected to the target
+     */
+    public void edgeAdded(int target) {
+        if (distances[target] != UNREACHABLE && distances[target] <= 1) return;
+
+        setDistance(target, 1);
+        queue[0] = target;
+        relax(1);
+    }
+
+    /**
+     * Breadth-first search from the nodes in the queue, lowering every distance that can be lowered
+     * @param size: number of nodes in the queue
+     */
+    private void relax(int size) {
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        for (int head = 0; head < size; head++) {
+            int v = queue[head];
+            int nextDistance = distances[v] + 1;
+
+            for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                int w = neighbors[k];
+                if (distances[w] == UNREACHABLE || distances[w] > nextDistance) {
+                    setDistance(w, nextDistance);
+                    queue[size++] = w;
+                }
+            }
+        }
+
+        while (maxDistance > 0 && bucketHeads[maxDistance] == NONE) {
+            maxDistance--;
+        }
+    }
+
+    /**
+     * Move the node to the bucket of its new distance
+     */
+    private void setDistance(int v, int distance) {
+        if (distances[v] != UNREACHABLE) {
+            if (previous[v] == NONE) {
+                bucketHeads[distances[v]] = next[v];
+            } else {
+                next[previous[v]] = next[v];
+            }
+            if (next[v] != NONE) previous[next[v]] = previous[v];
+        }
+
+        distances[v] = distance;
+        previous[v] = NONE;
+        next[v] = bucketHeads[distance];
+        if (next[v] != NONE) previous[next[v]] = v;
+        bucketHeads[distance] = v;
+
+        maxDistance = Math.max(maxDistance, distance);
+    }
+
+    /**
+     * @return distance from the newcomer to the node, or -1 if the node can't be reached
+     */
+    public int getDistance(int id) {
+        return distances[id];
+    }
+
+    /**
+     * @return largest distance from the newcomer to a node it can reach
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @return the first node at the given distance from the newcomer, or -1 if there is none
+     */
+    public int getFirstAt(int distance) {
+        return distance < bucketHeads.length ? bucketHeads[distance] : NONE;
+    }
+
+    /**
+     * @return the node after this one at the same distance from the newcomer, or -1 if it was the last one
+     */
+    public int getNextAtSameDistance(int id) {
+        return next[id];
+    }
+}
@@ -0,0 +1,176 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * All-pairs Brandes pass that partitions the BFS sources across a ForkJoinPool.
+ *
+ * Every worker thread reuses its own scratch arrays, and every leaf of the task tree accumulates into its own
+ * partial sums. The tree is split at fixed points that only depend on the node count, and partial sums are
+ * always merged left to right, so the floating point results don't depend on the number of threads
+ * or on how the work was stolen.
+ */
+public class ParallelBrandes {
+    private static final int TARGET_LEAF_COUNT = 256;
+
+    private final ForkJoinPool pool;
+
+    public ParallelBrandes() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBrandes(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Compute betweenness, closeness, eccentricity, diameter, radius and average path length
+     * @param metrics: results are written to these metrics
+     * @param dependencies: false to skip betweenness and only compute the distance metrics
+     */
+    public void compute(CompactGraph graph, GraphMetrics metrics, boolean dependencies) {
+        int n = graph.getNodeCount();
+        int leafSize = getLeafSize(n);
+        ThreadLocal<ShortestPathSweep> sweeps = ThreadLocal.withInitial(() -> new ShortestPathSweep(graph));
+
+        PartialSums sums = pool.invoke(new SourceRange(sweeps, metrics, dependencies, 0, n, leafSize));
+
+        if (sums == null) {
+            sums = new PartialSums(new double[n], 0, 0, 0, Integer.MAX_VALUE);
+        }
+
+        System.arraycopy(sums.betweenness, 0, metrics.betweenness, 0, n);
+        MetricEngine.normalizeBetweenness(metrics.betweenness, n);
+
+        metrics.pathLength = sums.distanceSum / sums.reachablePairs;
+        metrics.diameter = sums.diameter;
+        metrics.radius = sums.radius;
+    }
+
+    private static int getLeafSize(int n) {
+        return Math.max(1, (n + TARGET_LEAF_COUNT - 1) / TARGET_LEAF_COUNT);
+    }
+
+    /**
+     * Sum the dependencies of every source into raw betweenness, split and merged exactly like compute does,
+     * so the sums are equal to the betweenness of a full pass down to the last bit
+     * @param dependencies: dependencies of every source on every node, as added by ShortestPathSweep
+     * @param betweenness: the raw betweenness is written to this array
+     */
+    static void sumDependencies(double[][] dependencies, int n, double[] betweenness) {
+        // One partial sum per level of the task tree is enough, the left half of a range sums into its own level
+        int levels = 1;
+        for (int range = n; range > getLeafSize(n); range = (range + 1) / 2) {
+            levels++;
+        }
+
+        double[][] sums = new double[levels][n];
+        sumRange(dependencies, sums, 0, 0, n, getLeafSize(n));
+        System.arraycopy(sums[0], 0, betweenness, 0, n);
+    }
+
+    private static void sumRange(double[][] dependencies, double[][] sums, int level, int from, int to, int leafSize) {
+        double[] sum = sums[level];
+
+        if (to - from <= leafSize) {
+            Arrays.fill(sum, 0);
+            for (int source = from; source < to; source++) {
+                double[] row = dependencies[source];
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += row[i];
+                }
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sumRange(dependencies, sums, level, from, middle, leafSize);
+        sumRange(dependencies, sums, level + 1, middle, to, leafSize);
+
+        double[] right = sums[level + 1];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += right[i];     // Always merged left to right
+        }
+    }
+
+    /**
+     * Accumulated results of a contiguous range of sources
+     */
+    private static class PartialSums {
+        final double[] betweenness;
+        double distanceSum;
+        double reachablePairs;
+        int diameter;
+        int radius;
+
+        PartialSums(double[] betweenness, double distanceSum, double reachablePairs, int diameter, int radius) {
+            this.betweenness = betweenness;
+            this.distanceSum = distanceSum;
+            this.reachablePairs = reachablePairs;
+            this.diameter = diameter;
+            this.radius = radius;
+        }
+
+        void add(PartialSums other) {
+            for (int i = 0; i < betweenness.length; i++) {
+                betweenness[i] += other.betweenness[i];
+            }
+
+            distanceSum += other.distanceSum;
+            reachablePairs += other.reachablePairs;
+            diameter = Math.max(diameter, other.diameter);
+            radius = Math.min(radius, other.radius);
+        }
+    }
+
+    private static class SourceRange extends RecursiveTask<PartialSums> {
+        private final ThreadLocal<ShortestPathSweep> sweeps;
+        private final GraphMetrics metrics;
+        private final boolean dependencies;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        SourceRange(ThreadLocal<ShortestPathSweep> sweeps, GraphMetrics metrics, boolean dependencies,
+                    int from, int to, int leafSize) {
+            this.sweeps = sweeps;
+            this.metrics = metrics;
+            this.dependencies = dependencies;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected PartialSums compute() {
+            if (to - from <= leafSize) {
+                return computeDirectly();
+            }
+
+            int middle = (from + to) >>> 1;
+            SourceRange left = new SourceRange(sweeps, metrics, dependencies, from, middle, leafSize);
+            SourceRange right = new SourceRange(sweeps, metrics, dependencies, middle, to, leafSize);
+
+            right.fork();
+            PartialSums sums = left.compute();
+            sums.add(right.join());     // Always merged left to right
+
+            return sums;
+        }
+
+        private PartialSums computeDirectly() {
+            ShortestPathSweep sweep = sweeps.get();
+            sweep.resetAccumulators();
+
+            // Each source only writes its own closeness and eccentricity, so the arrays can be shared
+            for (int source = from; source < to; source++) {
+                sweep.accumulate(source, metrics.closeness, metrics.eccentricity, dependencies);
+            }
+
+            return new PartialSums(sweep.betweenness.clone(), sweep.distanceSum, sweep.reachablePairs,
+                    sweep.diameter, sweep.radius);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Approximates the top-k nodes by betweenness among a set of candidates, without computing the exact betweenness
+ * of every node. Pairs of nodes are sampled uniformly, one shortest path between them is sampled uniformly, and
+ * every node inside that path gets a hit. The fraction of hits of a node is an unbiased estimate of its
+ * betweenness (as a fraction of pairs).
+ *
+ * Sampling stops adaptively as soon as an empirical Bernstein bound shows that the top-k ranking is certain at the
+ * configured confidence, when every estimate is within the configured error, or when the number of samples
+ * reaches the bound given by the vertex diameter of the graph (Riondato and Kornaropoulos), whichever comes first.
+ */
+public class SampledBetweenness {
+    private static final int FIRST_CHECK = 1000;        // Samples taken before the stopping condition is checked
+    private static final double CHECK_GROWTH = 1.5;     // Factor between two consecutive checks
+
+    private final CompactGraph graph;
+    private final double epsilon;   // Target error, as a fraction of pairs
+    private final double delta;     // Probability that the reported bound doesn't hold
+    private final SplittableRandom random;
+
+    // Scratch arrays, reused for every sample
+    private int[] distances;
+    private double[] sigma;
+    private int[] queue;
+    private int visited;
+    private int[] hits;
+
+    // Results of the last estimation
+    private int samples;
+    private double errorBound;
+    private boolean rankingCertain;
+
+    /**
+     * @param epsilon: maximum error of the estimates, as a fraction of all pairs of nodes
+     * @param confidence: probability that the reported ranking and error bound are correct, e.g. 0.95
+     * @param seed: seed of the random generator, so runs can be repeated
+     */
+    public SampledBetweenness(CompactGraph graph, double epsilon, double confidence, long seed) {
+        this.graph = graph;
+        this.epsilon = epsilon;
+        this.delta = 1 - confidence;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return the candidate with the highest estimated betweenness, or -1 if there are no candidates
+     */
+    public int selectTop(int[] candidates, int candidateCount) {
+        int[] top = selectTop(candidates, candidateCount, 1);
+        return top.length > 0 ? top[0] : -1;
+    }
+
+    /**
+     * Estimate the k candidates with the highest betweenness
+     * @param candidates: dense ids of the candidates, only the first candidateCount are read
+     * @param k: number of nodes to rank
+     * @return ids of the top candidates, highest estimate first
+     */
+    public int[] selectTop(int[] candidates, int candidateCount, int k) {
+        int n = graph.getNodeCount();
+        k = Math.min(k, candidateCount);
+        allocateScratch(n);
+
+        samples = 0;
+        errorBound = 0;
+        rankingCertain = true;
+
+        // Nothing to rank when every candidate makes the cut
+        if (k == candidateCount || n < 3) {
+            return Arrays.copyOf(candidates, k);
+        }
+
+        Arrays.fill(hits, 0);
+        long maxSamples = getMaxSamples(candidates[0]);
+        long nextCheck = Math.min(FIRST_CHECK, maxSamples);
+        int checks = 0;
+        int[] top = new int[k];
+
+        while (true) {
+            while (samples < nextCheck) {
+                samplePath(n);
+                samples++;
+            }
+
+            // Spread the failure probability over all checks (delta / 2, delta / 4, ...) and all candidates
+            double checkDelta = delta / Math.pow(2, ++checks);
+            double logTerm = Math.log(2 * candidateCount / checkDelta);
+
+            double maxError = rankTop(candidates, candidateCount, top, logTerm);
+
+            if (rankingCertain || maxError <= epsilon || samples >= maxSamples) {
+                errorBound = samples >= maxSamples ? Math.min(maxError, epsilon) : maxError;
+                break;
+            }
+
+            nextCheck = Math.min(maxSamples, (long) Math.ceil(samples * CHECK_GROWTH));
+        }
+
+        return top;
+    }
+
+    private void allocateScratch(int n) {
+        if (distances != null && distances.length == n) return;
+
+        distances = new int[n];
+        sigma = new double[n];
+        queue = new int[n];
+        hits = new int[n];
+        visited = 0;
+        Arrays.fill(distances, -1);
+    }
+
+    /**
+     * Find the k candidates with the highest hit count and check whether their ranking is certain
+     * @return the largest error bound among all candidates
+     */
+    private double rankTop(int[] candidates, int candidateCount, int[] top, double logTerm) {
+        int k = top.length;
+        Arrays.fill(top, -1);
+
+        // Repeated scans are cheaper than sorting since k is small
+        for (int i = 0; i < k; i++) {
+            int best = -1;
+            for (int c = 0; c < candidateCount; c++) {
+                int candidate = candidates[c];
+                if (contains(top, i, candidate)) continue;
+                if (best == -1 || hits[candidate] > hits[best]) best = candidate;
+            }
+            top[i] = best;
+        }
+
+        double minTopLower = Double.POSITIVE_INFINITY;
+        double maxRestUpper = Double.NEGATIVE_INFINITY;
+        double maxError = 0;
+
+        for (int c = 0; c < candidateCount; c++) {
+            int candidate = candidates[c];
+            double estimate = (double) hits[candidate] / samples;
+            double error = getBernsteinError(estimate, logTerm);
+            maxError = Math.max(maxError, error);
+
+            if (contains(top, k, candidate)) {
+                minTopLower = Math.min(minTopLower, estimate - error);
+            } else {
+                maxRestUpper = Math.max(maxRestUpper, estimate + error);
+            }
+        }
+
+        rankingCertain = minTopLower > maxRestUpper;
+
+        return maxError;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Empirical Bernstein bound (Maurer and Pontil) on the error of a mean of Bernoulli samples
+     */
+    private double getBernsteinError(double estimate, double logTerm) {
+        double variance = estimate * (1 - estimate) * samples / Math.max(samples - 1, 1);
+        return Math.sqrt(2 * variance * logTerm / samples) + 7 * logTerm / (3.0 * Math.max(samples - 1, 1));
+    }
+
+    /**
+     * Number of samples that guarantees the target error for every node, from the VC dimension of shortest paths.
+     * The vertex diameter is bounded by twice the eccentricity of a node, or by the node count if the graph
+     * isn't connected.
+     */
+    private long getMaxSamples(int start) {
+        search(start, -1);
+
+        int vertexDiameter = graph.getNodeCount();
+        if (visited == graph.getNodeCount()) {
+            vertexDiameter = Math.min(vertexDiameter, 2 * distances[queue[visited - 1]] + 1);
+        }
+
+        double dimension = Math.floor(Math.log(Math.max(vertexDiameter - 2, 1)) / Math.log(2)) + 1;
+        return (long) Math.ceil(0.5 / (epsilon * epsilon) * (dimension + Math.log(1 / delta)));
+    }
+
+    /**
+     * Sample a pair of distinct nodes and a uniform shortest path between them, then hit the inner nodes of the path
+     */
+    private void samplePath(int n) {
+        int source = random.nextInt(n);
+        int target = random.nextInt(n - 1);
+        if (target >= source) target++;
+
+        search(source, target);
+        if (distances[target] < 0) return;     // No path between the pair
+
+        // Walk back from the target, picking each predecessor with probability proportional to its path count
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+        int current = target;
+
+        while (distances[current] > 1) {
+            double pick = random.nextDouble() * sigma[current];
+            int previousDistance = distances[current] - 1;
+            int next = -1;
+
+            for (int k = offsets[current], end = k + degrees[current]; k < end; k++) {
+                int v = neighbors[k];
+                if (distances[v] != previousDistance) continue;
+
+                next = v;
+                pick -= sigma[v];
+                if (pick < 0) break;
+            }
+
+            current = next;
+            hits[current]++;
+        }
+    }
+
+    /**
+     * Breadth-first search from the source, stopping once the path counts of the target are complete
+     * @param target: the node to stop at, or -1 to search the whole graph
+     */
+    private void search(int source, int target) {
+        for (int i = 0; i < visited; i++) {
+            distances[queue[i]] = -1;
+            sigma[queue[i]] = 0;
+        }
+
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        distances[source] = 0;
+        sigma[source] = 1;
+        queue[0] = source;
+        visited = 1;
+
+        for (int head = 0; head < visited; head++) {
+            int v = queue[head];
+
+            // Every predecessor of the target has been expanded once its own level is reached
+            if (target >= 0 && distances[target] >= 0 && distances[v] >= distances[target]) break;
+
+            int nextDistance = distances[v] + 1;
+            for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                int w = neighbors[k];
+
+                if (distances[w] < 0) {
+                    distances[w] = nextDistance;
+                    queue[visited++] = w;
+                }
+                if (distances[w] == nextDistance) {
+                    sigma[w] += sigma[v];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return estimated betweenness of the node from the last estimation, normalized the same way as Gephi
+     */
+    public double getEstimate(int id) {
+        return samples == 0 ? 0 : toGephiScale((double) hits[id] / samples);
+    }
+
+    /**
+     * @return error bound achieved by the last estimation, on the same scale as Gephi's normalized betweenness
+     */
+    public double getErrorBound() {
+        return toGephiScale(errorBound);
+    }
+
+    /**
+     * Sampled pairs include the node itself, Gephi's normalization only counts the pairs that don't
+     */
+    private double toGephiScale(double fraction) {
+        int n = graph.getNodeCount();
+        return fraction * n / (n - 2);
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return true if the last ranking is correct with the configured confidence
+     */
+    public boolean isRankingCertain() {
+        return rankingCertain;
+    }
+}
@@ -0,0 +1,167 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Runs Brandes' algorithm from one source at a time and accumulates the results. The scratch arrays are allocated
+ * once and reused for every source, so a full all-pairs pass does not allocate per source.
+ *
+ * Betweenness is accumulated raw (summed over ordered source/target pairs), the correction that Gephi applies is
+ * done once at the end by the MetricEngine.
+ */
+class ShortestPathSweep {
+    private final CompactGraph graph;
+
+    // Scratch arrays, reused for every source
+    final int[] distances;
+    final double[] sigma;
+    private final double[] delta;
+    final int[] order;      // Nodes in BFS order, read backwards as the stack of Brandes' algorithm
+    int reached;            // Number of nodes in order[]
+
+    // Accumulated results
+    final double[] betweenness;
+    double distanceSum;
+    double reachablePairs;
+    int diameter;
+    int radius = Integer.MAX_VALUE;
+
+    ShortestPathSweep(CompactGraph graph) {
+        this.graph = graph;
+
+        int n = graph.getNodeCount();
+        distances = new int[n];
+        sigma = new double[n];
+        delta = new double[n];
+        order = new int[n];
+        betweenness = new double[n];
+
+        Arrays.fill(distances, -1);
+    }
+
+    /**
+     * Clear the accumulated results so the scratch arrays can be reused for another batch of sources
+     */
+    void resetAccumulators() {
+        Arrays.fill(betweenness, 0);
+        distanceSum = 0;
+        reachablePairs = 0;
+        diameter = 0;
+        radius = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Breadth-first search from the source, filling distances[], sigma[] and order[]
+     * Nodes that were not reached keep a distance of -1
+     */
+    void search(int source) {
+        // Only reset the nodes touched by the previous search
+        for (int i = 0; i < reached; i++) {
+            int v = order[i];
+            distances[v] = -1;
+            sigma[v] = 0;
+        }
+
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        distances[source] = 0;
+        sigma[source] = 1;
+        order[0] = source;
+        reached = 1;
+
+        for (int head = 0; head < reached; head++) {
+            int v = order[head];
+            int nextDistance = distances[v] + 1;
+
+            for (int k = offsets[v], end = k + degrees[v]; k < end; k++) {
+                int w = neighbors[k];
+
+                if (distances[w] < 0) {
+                    distances[w] = nextDistance;
+                    order[reached++] = w;
+                }
+                if (distances[w] == nextDistance) {
+                    sigma[w] += sigma[v];
+                }
+            }
+        }
+    }
+
+    /**
+     * Search from the source and add its contribution to every accumulated metric
+     * @param closeness: closeness of the source is written to this array if it isn't null
+     * @param eccentricity: eccentricity of the source is written to this array if it isn't null
+     * @param dependencies: false to skip the backward pass when betweenness isn't needed
+     */
+    void accumulate(int source, double[] closeness, double[] eccentricity, boolean dependencies) {
+        search(source);
+        accumulateDistances(source, closeness, eccentricity);
+        if (dependencies) accumulateDependencies(source);
+    }
+
+    /**
+     * Add the distances found by the last search to the path length, diameter and radius
+     */
+    void accumulateDistances(int source, double[] closeness, double[] eccentricity) {
+        int sourceEccentricity = 0;
+        double sum = 0;
+
+        for (int i = 1; i < reached; i++) {
+            int d = distances[order[i]];
+            sum += d;
+            if (d > sourceEccentricity) sourceEccentricity = d;
+        }
+
+        int reachable = reached - 1;
+        distanceSum += sum;
+        reachablePairs += reachable;
+        diameter = Math.max(diameter, sourceEccentricity);
+        radius = Math.min(radius, sourceEccentricity);
+
+        if (closeness != null) closeness[source] = (reachable == 0 || sum == 0) ? 0 : reachable / sum;
+        if (eccentricity != null) eccentricity[source] = sourceEccentricity;
+    }
+
+    /**
+     * Walk the BFS order backwards and add the dependency of the source on every node to its betweenness
+     */
+    void accumulateDependencies(int source) {
+        int[] offsets = graph.offsets;
+        int[] degrees = graph.degrees;
+        int[] neighbors = graph.neighbors;
+
+        for (int i = 0; i < reached; i++) {
+            delta[order[i]] = 0;
+        }
+
+        for (int i = reached - 1; i > 0; i--) {
+            int w = order[i];
+            int previousDistance = distances[w] - 1;
+            double coefficient = (1 + delta[w]) / sigma[w];
+
+            // Predecessors of w are exactly its neighbours one step closer to the source
+            for (int k = offsets[w], end = k + degrees[w]; k < end; k++) {
+                int v = neighbors[k];
+                if (distances[v] == previousDistance) {
+                    delta[v] += sigma[v] * coefficient;
+                }
+            }
+
+            betweenness[w] += delta[w];
+        }
+    }
+
+    /**
+     * Write the dependency of the source on every node, as added to the betweenness by the last
+     * accumulateDependencies, to the row. The source and the nodes it didn't reach get 0.
+     */
+    void copyDependencies(double[] row) {
+        Arrays.fill(row, 0);
+
+        for (int i = 1; i < reached; i++) {
+            row[order[i]] = delta[order[i]];
+        }
+    }
+}
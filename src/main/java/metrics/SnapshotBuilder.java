@@ -0,0 +1,136 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a GraphSnapshot from nodes and edges as a reader streams them, without a Gephi graph or import container.
+ *
+ * The result is the same as importing the graph into Gephi and taking its snapshot: nodes get dense ids in the order
+ * they first appear, whether declared or only used by an edge, and an edge that was already added in either
+ * direction is merged into the first one. Self loops are kept as edges of the graph but, like in the CompactGraph,
+ * they have no neighbour entry.
+ */
+public class SnapshotBuilder {
+    private static final int MAX_NUMERIC_DIGITS = 18;       // Longer decimal ids may not fit in a long
+
+    private final LongIntHashMap numericIds = new LongIntHashMap();
+    private final Map<String, Integer> otherIds = new HashMap<>();
+    private final LongIntHashMap edgeSet = new LongIntHashMap();
+
+    private String[] ids = new String[16];
+    private String[] labels = new String[16];
+    private int nodeCount;
+
+    private int[] edges = new int[32];      // Source and target of every edge, in the order they were added
+    private int edgeCount;
+    private int duplicateEdges;
+    private int selfLoops;
+
+    /**
+     * @return dense id of the node with the given id, which is added if it doesn't exist yet
+     */
+    public int addNode(String id) {
+        long numeric = parseCanonical(id);
+        if (numeric >= 0) return addNode(numeric);
+
+        Integer existing = otherIds.get(id);
+        if (existing != null) return existing;
+
+        int dense = newNode(id);
+        otherIds.put(id, dense);
+        return dense;
+    }
+
+    /**
+     * Faster version of addNode(String) for ids that are written as a non-negative decimal number
+     * @return dense id of the node with the given id, which is added if it doesn't exist yet
+     */
+    public int addNode(long id) {
+        int existing = numericIds.get(id);
+        if (existing != LongIntHashMap.ABSENT) return existing;
+
+        int dense = newNode(Long.toString(id));
+        numericIds.putIfAbsent(id, dense);
+        return dense;
+    }
+
+    /**
+     * @return the value of an id written as a decimal number without leading zeros, or -1 for any other id
+     */
+    private static long parseCanonical(String id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_NUMERIC_DIGITS || (length > 1 && id.charAt(0) == '0')) return -1;
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private int newNode(String id) {
+        if (nodeCount == ids.length) {
+            ids = Arrays.copyOf(ids, nodeCount * 2);
+            labels = Arrays.copyOf(labels, nodeCount * 2);
+        }
+
+        ids[nodeCount] = id;
+        return nodeCount++;
+    }
+
+    public void setLabel(int node, String label) {
+        labels[node] = label;
+    }
+
+    /**
+     * Add an undirected edge between two dense ids
+     * @return true if the edge was added, false if it merged into an edge that was already added
+     */
+    public boolean addEdge(int source, int target) {
+        long key = source < target ? ((long) source << 32) | target : ((long) target << 32) | source;
+        if (edgeSet.putIfAbsent(key, 0) != LongIntHashMap.ABSENT) {
+            duplicateEdges++;
+            return false;
+        }
+
+        if (2 * edgeCount + 2 > edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+
+        edges[2 * edgeCount] = source;
+        edges[2 * edgeCount + 1] = target;
+        edgeCount++;
+        if (source == target) selfLoops++;
+
+        return true;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return number of edges that merged into an edge added before them
+     */
+    public int getDuplicateEdges() {
+        return duplicateEdges;
+    }
+
+    public int getSelfLoops() {
+        return selfLoops;
+    }
+
+    public GraphSnapshot build() {
+        return GraphSnapshot.build(Arrays.copyOf(ids, nodeCount), Arrays.copyOf(labels, nodeCount), nodeCount,
+                Arrays.copyOf(edges, 2 * edgeCount));
+    }
+}
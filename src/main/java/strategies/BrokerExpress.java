@@ -1,23 +1,36 @@
 package strategies;
 
-import org.gephi.graph.api.Edge;
+import metrics.CoverageSet;
+import metrics.FarthestNodeService;
+import metrics.Metric;
 import org.gephi.graph.api.Node;
 
 import java.awt.Color;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.EnumSet;
 
 public class BrokerExpress extends Strategy {
-    private Collection<Node> uncovered;
+    private CoverageSet uncovered;
+    private FarthestNodeService farthestNodes;
 
     public BrokerExpress(String graphFilePath, String outputFilePath, int edgeLimit, boolean updateEveryRound, boolean visualise, boolean export) {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        // Only degree is used, which is read from the graph
+        return EnumSet.noneOf(Metric.class);
+    }
+
     @Override
     public void execute(Node newcomer) {
-        uncovered = graph.getNodes().toCollection();
+        uncovered = CoverageSet.allNodes(compactGraph);
+        farthestNodes = new FarthestNodeService(compactGraph);
+
+        // Degrees of uncovered nodes don't change: every new edge goes to a node that is covered right after,
+        // and the newcomer itself is covered in the first round as a neighbour of the start node
+        initCandidates(uncovered.getNodes(), id -> graph.getDegree(compactGraph.getNode(id)), false, false);
 
         // Iterating in steps of 2 because two edges are added in every round
         for (int i = 0; i < edgeLimit && uncovered.size() != 0; i+=2) {
@@ -26,14 +39,11 @@ public class BrokerExpress extends Strategy {
             Node endNode = getEndNode(startNode);
 
             // Establish connections between newcomer and start/end nodes
-            Edge startEdge = graphModel.factory().newEdge(newcomer, startNode, 0, 1f, false);
-            Edge endEdge = graphModel.factory().newEdge(newcomer, endNode, 0, 1f, false);
-
-            graph.addEdge(startEdge);
+            connect(newcomer, startNode);
             if (updateEveryRound) updateCentralities();
             if (export) exportCentralities(newcomer);
 
-            graph.addEdge(endEdge);
+            connect(newcomer, endNode);
             if (updateEveryRound) updateCentralities();
             if (export) exportCentralities(newcomer);
 
@@ -44,6 +54,10 @@ public class BrokerExpress extends Strategy {
             uncovered.removeAll(endNeighbors);
             uncovered.remove(startNode);
             uncovered.remove(endNode);
+            removeCandidates(startNeighbors);
+            removeCandidates(endNeighbors);
+            removeCandidate(startNode);
+            removeCandidate(endNode);
 
             if (visualise) {
                 startNode.setColor(visualizer.getColor(i));
@@ -57,23 +71,16 @@ public class BrokerExpress extends Strategy {
                     node.setColor(visualizer.getColor(i));
                 }
                 newcomer.setColor(Color.BLACK);
-                visualizer.updateView();
+                refreshView();
             }
         }
     }
 
     private Node getStartNode() {
-        // Choose start node with maximum degree
-        int maxDegree = 0;
-        Node startNode = null;
-
-        for(Node n : uncovered) {
-            int degree = graph.getDegree(n);
-            if(degree > maxDegree) {
-                startNode = n;
-                maxDegree = degree;
-            }
-        }
+        // Choose start node with maximum degree, nodes without edges are never chosen
+        Node startNode = getBestCandidate();
+        int maxDegree = startNode == null ? 0 : graph.getDegree(startNode);
+        if (maxDegree == 0) startNode = null;
 
         if(startNode == null && maxDegree == 0) {
             try {
@@ -86,25 +93,13 @@ public class BrokerExpress extends Strategy {
         return startNode;
     }
 
-    // Use BFS to find end node
-    private Node getEndNode(Node startNode) {
-        ArrayList<Node> set = new ArrayList<>();
-        LinkedList<Node> queue = new LinkedList<>();
-
-        set.add(startNode);
-        queue.addLast(startNode);
-
-        while(!queue.isEmpty()) {
-            Node current = queue.pop();
-
-            for(Node n : graph.getNeighbors(current)) {
-                if(!set.contains(n)) {
-                    set.add(n);
-                    queue.add(n);
-                }
-            }
-        }
+    @Override
+    void edgeAdded(int u, int v) {
+        farthestNodes.edgeAdded(u, v);
+    }
 
-        return set.get(set.size()-1);
+    // Use BFS to find end node, the farthest node from the start node that was imported last
+    private Node getEndNode(Node startNode) {
+        return compactGraph.getNode(farthestNodes.getFarthest(compactGraph.indexOf(startNode)));
     }
 }
\ No newline at end of file
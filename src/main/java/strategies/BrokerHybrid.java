@@ -1,11 +1,11 @@
 package strategies;
 
-import org.gephi.graph.api.Column;
+import metrics.Metric;
 import org.gephi.graph.api.Node;
-import org.gephi.statistics.plugin.GraphDistance;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
 
 public class BrokerHybrid extends Strategy {
     private static final String STRATEGY_ONE = "strategyOne";
@@ -19,6 +19,11 @@ public class BrokerHybrid extends Strategy {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        return EnumSet.of(Metric.CLOSENESS);
+    }
+
     @Override
     public void execute(Node node) {
         // Run both algorithms in the first and second round
@@ -35,12 +40,11 @@ public class BrokerHybrid extends Strategy {
 
     private Double getClosenessRank(Node node) {
         Collection<Node> nodeList = graph.getNodes().toCollection();
-        Column column = graphModel.getNodeTable().getColumn(GraphDistance.CLOSENESS);
-        Double selectedCentrality = (Double) node.getAttribute(column);
+        double selectedCentrality = metrics.getCloseness(compactGraph.indexOf(node));
         int counter = 0;
 
         for (Node n : nodeList) {
-            Double centrality = (Double) n.getAttribute(column);
+            double centrality = metrics.getCloseness(compactGraph.indexOf(n));
 
             if(centrality >= selectedCentrality) {
                 counter++;
@@ -1,21 +1,21 @@
 package strategies;
 
-import org.gephi.algorithms.shortestpath.DijkstraShortestPathAlgorithm;
+import metrics.CoverageSet;
+import metrics.Metric;
+import metrics.NewcomerDistances;
 import org.gephi.graph.api.*;
-import org.gephi.statistics.plugin.GraphDistance;
 
 import java.awt.*;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.Map;
 
 /**
  * This algorithm uses connects the newcomer to the node with the highest betweenness centrality. Afterwards,
  * it repeatedly connects the newcomer to the node which is most distant.
  */
 public class CentrePeriphery extends Strategy {
-    private Collection<Node> uncovered;
+    private CoverageSet uncovered;
+    private NewcomerDistances newcomerDistances;
     private Node newcomer;
 
     private Double overallMaxDistance = null;
@@ -24,11 +24,18 @@ public class CentrePeriphery extends Strategy {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        // Betweenness isn't needed when it is estimated by sampling
+        return APPROXIMATE_BETWEENNESS ? EnumSet.noneOf(Metric.class) : EnumSet.of(Metric.BETWEENNESS);
+    }
+
     @Override
     public void execute(Node node) {
         this.newcomer = node;
-        uncovered = graph.getNodes().toCollection();
+        uncovered = CoverageSet.allNodes(compactGraph);
         uncovered.remove(newcomer);
+        newcomerDistances = new NewcomerDistances(compactGraph, compactGraph.indexOf(newcomer));
 
         connectToCentre();
 
@@ -48,30 +55,33 @@ public class CentrePeriphery extends Strategy {
      */
     private void connectToCentre() {
         if (updateEveryRound) updateCentralities();
-        Column betweenness = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
 
         //find the node with the highest centrality.
         Node selectedNode = null;
-        Double maxBetweenness = 0.0;
+        double maxBetweenness = 0.0;
 
-        for (Node node : graph.getNodes().toCollection()) {
-            Double nodeBetweenness = (Double) node.getAttribute(betweenness);
-
-            if (selectedNode == null) {
-                selectedNode = node;
-                maxBetweenness = nodeBetweenness;
+        if (APPROXIMATE_BETWEENNESS) {
+            selectedNode = getSampledMaxBetweennessNode(graph.getNodes().toCollection());
+        } else {
+            for (Node node : graph.getNodes().toCollection()) {
+                double nodeBetweenness = getBetweenness(node);
 
-            } else {
-                if (nodeBetweenness > maxBetweenness) {
+                if (selectedNode == null) {
                     selectedNode = node;
                     maxBetweenness = nodeBetweenness;
+
+                } else {
+                    if (nodeBetweenness > maxBetweenness) {
+                        selectedNode = node;
+                        maxBetweenness = nodeBetweenness;
+                    }
                 }
             }
         }
 
         //connect the newcomer to the centre of the graph
-        Edge edge = graphModel.factory().newEdge(newcomer, selectedNode, 0, 1f, false);
-        graph.addEdge(edge);
+        connect(newcomer, selectedNode);
+        newcomerDistances.edgeAdded(compactGraph.indexOf(selectedNode));
 
         //remove selected node from the uncovered collection
         uncovered.remove(selectedNode);
@@ -88,28 +98,7 @@ public class CentrePeriphery extends Strategy {
      * This method connects the newcomer to the peripheral node the highest centrality, with a new edge.
      */
     private void connectToPeriphery() {
-
-        DijkstraShortestPathAlgorithm algorithm = new DijkstraShortestPathAlgorithm(graph, newcomer);
-        algorithm.compute();
-
-        //distances contains a record of all the shortest-path distances from the newcomer, to any node in the graph.
-        HashMap<Node, Double> distances = algorithm.getDistances();
-
-        Double maxDistance = algorithm.getMaxDistance();
-
-        HashSet<Node> furthestNodes = new HashSet<>();
-
-        for (Map.Entry<Node, Double> entry : distances.entrySet()) {
-
-            Node candidateNode = entry.getKey();
-            Double candidateDistance = entry.getValue();
-
-            if (!uncovered.contains(candidateNode)) continue;
-
-            if (candidateDistance != Double.POSITIVE_INFINITY && candidateDistance.equals(maxDistance)) {
-                furthestNodes.add(candidateNode);
-            }
-        }
+        HashSet<Node> furthestNodes = getFurthestNodes();
 
         Node selectedNode = null;
 
@@ -117,17 +106,17 @@ public class CentrePeriphery extends Strategy {
         if (furthestNodes.size() == 1) {
             Object[] object = furthestNodes.toArray();
             selectedNode = (Node) object[0];
+        } else if (APPROXIMATE_BETWEENNESS) {
+            selectedNode = getSampledMaxBetweennessNode(furthestNodes);
         } else {
             if (updateEveryRound) updateCentralities();
 
-            Column betweenness = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
-
             //find the node with the highest centrality.
-            Double maxBetweenness = 0.0;
+            double maxBetweenness = 0.0;
 
             for (Object object : furthestNodes.toArray()) {
                 Node candidateNode = (Node) object;
-                Double nodeBetweenness = (Double) candidateNode.getAttribute(betweenness);
+                double nodeBetweenness = getBetweenness(candidateNode);
 
                 if (selectedNode == null) {
                     selectedNode = candidateNode;
@@ -143,8 +132,8 @@ public class CentrePeriphery extends Strategy {
         }
 
         //connect the newcomer to the centre of the graph
-        Edge edge = graphModel.factory().newEdge(newcomer, selectedNode, 0, 1f, false);
-        graph.addEdge(edge);
+        connect(newcomer, selectedNode);
+        newcomerDistances.edgeAdded(compactGraph.indexOf(selectedNode));
 
         uncovered.remove(selectedNode);
 
@@ -156,25 +145,33 @@ public class CentrePeriphery extends Strategy {
     }
 
     /**
-     * This method repaints the nodes of the selectedNode's community
+     * @return the uncovered nodes that are the most distant from the newcomer
      */
-    private void updateView() {
-        DijkstraShortestPathAlgorithm algorithm = new DijkstraShortestPathAlgorithm(graph, newcomer);
-        algorithm.compute();
+    private HashSet<Node> getFurthestNodes() {
+        int maxDistance = newcomerDistances.getMaxDistance();
 
-        //distances contains a record of all the shortest-path distances from the newcomer, to any node in the graph.
-        HashMap<Node, Double> distances = algorithm.getDistances();
+        HashSet<Node> furthestNodes = new HashSet<>();
 
-        if (overallMaxDistance == null) {
-            overallMaxDistance = algorithm.getMaxDistance();
+        // Only the bucket of the largest distance is walked, the nodes in it may already be covered
+        for (int id = newcomerDistances.getFirstAt(maxDistance); id >= 0;
+             id = newcomerDistances.getNextAtSameDistance(id)) {
+            if (uncovered.contains(id)) furthestNodes.add(compactGraph.getNode(id));
         }
 
-        for (Map.Entry<Node, Double> entry : distances.entrySet()) {
+        return furthestNodes;
+    }
 
-            Node candidateNode = entry.getKey();
-            Double candidateDistance = entry.getValue();
+    /**
+     * This method repaints the nodes of the selectedNode's community
+     */
+    private void updateView() {
+        if (overallMaxDistance == null) {
+            overallMaxDistance = (double) newcomerDistances.getMaxDistance();
+        }
 
-            if (!uncovered.contains(candidateNode)) continue;
+        for (Node candidateNode : uncovered.getNodes()) {
+            int distance = newcomerDistances.getDistance(compactGraph.indexOf(candidateNode));
+            Double candidateDistance = distance < 0 ? Double.POSITIVE_INFINITY : distance;
 
             // newcomer distance is zero, selected node distance is one, neither will be repainted
             if (visualise) {
@@ -183,6 +180,6 @@ public class CentrePeriphery extends Strategy {
             }
         }
 
-        visualizer.updateView();
+        refreshView();
     }
 }
\ No newline at end of file
@@ -1,18 +1,20 @@
 package strategies;
 
 import javafx.util.Pair;
+import metrics.LouvainHierarchy;
+import metrics.Metric;
 import org.gephi.appearance.api.*;
 import org.gephi.appearance.plugin.PartitionElementColorTransformer;
 import org.gephi.graph.api.Column;
-import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Node;
-import org.gephi.statistics.plugin.GraphDistance;
 import org.gephi.statistics.plugin.Modularity;
 import org.openide.util.Lookup;
 
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Objects;
 
 /**
@@ -26,6 +28,10 @@ public class Community extends Strategy {
     private static final String INCREASING = "increasing";
     private static final String DECREASING = "decreasing";
 
+    // Derive the communities from one native Louvain hierarchy instead of searching the resolution of Modularity
+    private static final boolean NATIVE_COMMUNITIES = true;
+    private static final int MAX_PROBES = 64;      // Modularity runs allowed for the resolution search
+
     private Node newcomer;
     private AppearanceController appearanceController;
     private AppearanceModel appearanceModel;
@@ -33,6 +39,10 @@ public class Community extends Strategy {
     private Function function;
     private Partition partition;
 
+    // Community of every node by dense id, and the community values from the largest community to the smallest
+    private int[] communities;
+    private int[] sortedValues;
+
     private String condition;
     private double resolution;
     private double increment;
@@ -44,13 +54,52 @@ public class Community extends Strategy {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        return EnumSet.of(Metric.BETWEENNESS);
+    }
+
     @Override
     public void execute(Node newcomer) {
         this.newcomer = newcomer;
 
         appearanceController = Lookup.getDefault().lookup(AppearanceController.class);
-        appearanceModel = appearanceController.getModel();
+        appearanceModel = appearanceController.getModel(workspace);
+
+        communitiesNeeded = edgeLimit + 1; // The extra community is to hold the Newcomer.
+
+        if (NATIVE_COMMUNITIES) {
+            findNativeCommunities();
+        } else {
+            findModularityCommunities();
+        }
 
+        getTargetNodes();
+
+        createEdges();
+    }
+
+    /**
+     * Find exactly the communities needed from a Louvain hierarchy computed once, keeping the newcomer on its own
+     */
+    private void findNativeCommunities() {
+        LouvainHierarchy hierarchy = new LouvainHierarchy(compactGraph);
+        communities = hierarchy.getPartition(communitiesNeeded, compactGraph.indexOf(newcomer));
+
+        int communityCount = 0;
+        for (int value : communities) communityCount = Math.max(communityCount, value + 1);
+        sortValuesBySize(communityCount);
+
+        System.out.println("Found " + communityCount + " communities from " + hierarchy.getLevelCount() +
+                " Louvain levels and " + hierarchy.getMerges() + " merges");
+    }
+
+    /**
+     * Search the resolution of Gephi's Modularity that gives the communities needed, running it at most
+     * MAX_PROBES times. The communities come from the native Louvain hierarchy if the search doesn't converge,
+     * since any other partition has a different number of communities than the newcomer has edges.
+     */
+    private void findModularityCommunities() {
         // Modularity is calculated by Louvain method for community detection
         modularity = new Modularity();
 
@@ -59,17 +108,53 @@ public class Community extends Strategy {
         resolution = 1.0;
         increment = 0.5;
         condition = STARTING;
-        communitiesNeeded = edgeLimit + 1; // The extra community is to hold the Newcomer.
 
         boolean foundAppropriateResolution = false;
+        int probes = 0;
 
-        while(!foundAppropriateResolution) {
+        while(!foundAppropriateResolution && probes < MAX_PROBES) {
             foundAppropriateResolution = refineResolution();
+            probes++;
         }
 
-        getTargetNodes();
+        if (!foundAppropriateResolution) {
+            System.out.println("No resolution gave " + communitiesNeeded + " communities after " + probes +
+                    " Modularity runs, using the Louvain hierarchy");
 
-        createEdges();
+            // The last probe's partition doesn't match the native communities, nodes are colored without it
+            partition = null;
+            function = null;
+            findNativeCommunities();
+            return;
+        }
+
+        System.out.println("Found " + partition.size() + " communities after " + probes + " Modularity runs");
+
+        communities = new int[compactGraph.getNodeCount()];
+        for (int id = 0; id < communities.length; id++) {
+            communities[id] = (Integer) partition.getValue(compactGraph.getNode(id), graph);
+        }
+
+        sortedValues = new int[partition.size()];
+        int i = 0;
+        for (Object value : partition.getSortedValues()) {
+            sortedValues[i++] = (Integer) value;
+        }
+    }
+
+    /**
+     * Order the community values from the largest community to the smallest, like Partition.getSortedValues()
+     */
+    private void sortValuesBySize(int communityCount) {
+        int[] sizes = new int[communityCount];
+        for (int value : communities) sizes[value]++;
+
+        Integer[] values = new Integer[communityCount];
+        for (int value = 0; value < communityCount; value++) values[value] = value;
+        Arrays.sort(values, (a, b) -> sizes[b] - sizes[a]);
+
+        sortedValues = new int[communityCount];
+        for (int i = 0; i < communityCount; i++) sortedValues[i] = values[i];
     }
 
     /**
@@ -120,16 +205,15 @@ public class Community extends Strategy {
      */
     private void getTargetNodes() {
         if (updateEveryRound) updateCentralities();
-        Column betweenness = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
 
         // Find the node with the highest centrality of each partition.
         // Pair[0] is for the partition with the value of 0, the Double is the betweenness of the Node.
-        record = new Pair[partition.size()];
+        record = new Pair[sortedValues.length];
 
         for (Node node : graph.getNodes().toCollection()) {
-            Double nodeBetweenness = (Double) node.getAttribute(betweenness);
+            Double nodeBetweenness = getBetweenness(node);
 
-            int value = (Integer) partition.getValue(node, graph);
+            int value = communities[compactGraph.indexOf(node)];
 
             if (record[value] == null) {
                 record[value] = new Pair<>(node, nodeBetweenness);
@@ -150,17 +234,11 @@ public class Community extends Strategy {
      */
     private void createEdges() {
         // Color the newcomer black and every other node white
-        Integer newcomerValue = (Integer) partition.getValue(newcomer, graph);
+        int newcomerValue = communities[compactGraph.indexOf(newcomer)];
 
         if(visualise) {
-            for (Object object : partition.getValues()) {
-                Integer value = (Integer) object;
-
-                if (Objects.equals(value, newcomerValue)) {
-                    partition.setColor(value, Color.BLACK);
-                } else {
-                    partition.setColor(value, Color.WHITE);
-                }
+            for (int value : sortedValues) {
+                setCommunityColor(value, value == newcomerValue ? Color.BLACK : Color.WHITE);
             }
         }
 
@@ -168,31 +246,43 @@ public class Community extends Strategy {
         int colorIndex = 0;
         ArrayList<Node> selectedNodes = new ArrayList<>();
 
-        for (Object o : partition.getSortedValues()) {
-            Integer value = (Integer) o;
+        for (int value : sortedValues) {
             Node selectedNode = record[value].getKey();
 
             selectedNodes.add(selectedNode);
 
-            if (!Objects.equals(value, newcomerValue)) {
-                if (visualise) partition.setColor(value, visualizer.getColor(colorIndex++));
+            if (value != newcomerValue) {
+                if (visualise) setCommunityColor(value, visualizer.getColor(colorIndex++));
 
-                Edge edge = graphModel.factory().newEdge(newcomer, selectedNode, 0, 1f, false);
-                graph.addEdge(edge);
+                connect(newcomer, selectedNode);
 
                 if (updateEveryRound) updateCentralities();
                 if (export) exportCentralities(newcomer);
                 if (visualise) {
-                    appearanceController.transform(function);
+                    if (partition != null) appearanceController.transform(function);
 
                     for (Node targetNode : selectedNodes) {
                         targetNode.setColor(Color.BLACK);
                         targetNode.setSize(40);
                     }
 
-                    visualizer.updateView();
+                    refreshView();
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Color every node of the community, through the Gephi partition if the communities came from Modularity
+     */
+    private void setCommunityColor(int value, Color color) {
+        if (partition != null) {
+            partition.setColor(value, color);
+            return;
+        }
+
+        for (int id = 0; id < communities.length; id++) {
+            if (communities[id] == value) compactGraph.getNode(id).setColor(color);
+        }
+    }
+}
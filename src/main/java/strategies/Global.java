@@ -1,30 +1,41 @@
 package strategies;
 
-import org.gephi.graph.api.Column;
-import org.gephi.graph.api.Edge;
+import metrics.CoverageSet;
+import metrics.Metric;
 import org.gephi.graph.api.Node;
-import org.gephi.statistics.plugin.GraphDistance;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.EnumSet;
 
 public class Global extends Strategy {
-    private Collection<Node> uncovered;
+    private CoverageSet uncovered;
 
     public Global(String graphFilePath, String outputFilePath, int edgeLimit, boolean updateEveryRound, boolean visualise, boolean export) {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        // Neither is needed when betweenness is estimated by sampling and the radius by a double sweep
+        return APPROXIMATE_BETWEENNESS ? EnumSet.noneOf(Metric.class) :
+                EnumSet.of(Metric.BETWEENNESS, Metric.RADIUS);
+    }
+
+    @Override
+    boolean readsDistances() {
+        return true;
+    }
+
     @Override
     public void execute(Node newcomer) {
         ArrayList<Node> targets = new ArrayList<>();
 
         // Get list of uncovered nodes from input graph
-        uncovered = graph.getNodes().toCollection();
+        uncovered = CoverageSet.allNodes(compactGraph);
+        initCandidates(uncovered.getNodes(), id -> metrics.getBetweenness(id), true, true);
 
-        int radius = (int) distance.getRadius();
+        int radius = getRadius();
 
         for (int i = 0; i < edgeLimit && uncovered.size() != 0; i++) {
             // Find next node from list of uncovered node
@@ -32,84 +43,48 @@ public class Global extends Strategy {
             targets.add(selectedNode);
 
             // Establish edge between newcomer and selected node
-            Edge edge = graphModel.factory().newEdge(newcomer, selectedNode, 0, 1f, false);
-            graph.addEdge(edge);
+            connect(newcomer, selectedNode);
             targets.add(selectedNode);
 
             // Compute all immediate neighbours from selected node and remove from uncovered list
             Collection<Node> neighbors = getNeighborhood(selectedNode, radius-1);
             uncovered.removeAll(neighbors);
             uncovered.remove(selectedNode);
+            removeCandidates(neighbors);
+            removeCandidate(selectedNode);
 
             if (updateEveryRound) updateCentralities();
             if (export) exportCentralities(newcomer);
             if(visualise) {
                 selectedNode.setColor(visualizer.getColor(i));
                 selectedNode.setSize(40);
-                visualizer.updateView();
+                refreshView();
             }
         }
     }
 
     private Node getNextNode() {
         // Find node with max centrality within list of uncovered node
-        Node nextNode = graphModel.factory().newNode();
-        Column column = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
-
-        for (Node n : uncovered) {
-            Double maxCentrality = (Double) nextNode.getAttribute(column);
-            Double centrality = (Double) n.getAttribute(column);
-
-            if (centrality >= maxCentrality) {
-                nextNode = n;
-            }
-        }
-
-        return nextNode;
+        return APPROXIMATE_BETWEENNESS ? getMaxBetweennessNode(uncovered.getNodes()) : getBestCandidate();
     }
 
     /**
      * Finds a set of nodes with at most distance n from the root node
-     * Uses the Iteratively Deepening Depth-First Search (IDDFS) algorithm
-     * to traverse the neighbourhood
+     * Uses a breadth-first search bounded by the depth, or the cached distances if available
      *
      * @param root: the root node to search for the neighbourhood from
      * @param depth: how deep to search neighbours for
-     * @return
+     * @return a view of the neighbourhood, excluding the root, valid until the next search
      */
-    HashSet<Node> getNeighborhood(Node root, int depth) {
-        HashSet<Node> neighbourhood = new HashSet<>();
-        LinkedList<Node> queue = new LinkedList<>();
-        LinkedList<Node> nextQueue = new LinkedList<>();
-
-        // Use root node as starting point
-        neighbourhood.add(root);
-        queue.add(root);
-
-        for(int i=0; i<depth; i++) {
-            // Iterate through all nodes at current depth to find unvisited neighbours
-            while(!queue.isEmpty()) {
-                Node currentNode = queue.pop();
-                Collection<Node> currentNeighbours = graph.getNeighbors(currentNode).toCollection();
-
-                // Iterate through all immediate neighbours to find new neighbours
-                for(Node n : currentNeighbours) {
-                    // Only add to neighbourhood and queue if node is unvisited
-                    if(!neighbourhood.contains(n)) {
-                        neighbourhood.add(n);
-                        nextQueue.add(n);   // Unvisited nodes for next depth
-                    }
-                }
-            }
+    Collection<Node> getNeighborhood(Node root, int depth) {
+        int rootId = compactGraph.indexOf(root);
 
-            // Replace current queue with queue for next depth
-            queue.addAll(nextQueue);
-            nextQueue.clear();
+        if (distanceOracle != null) {
+            boundedBfs.search(rootId, depth, distanceOracle);
+        } else {
+            boundedBfs.search(rootId, depth);
         }
 
-        // Make sure the neighbourhood doesn't contain the root node itself
-        neighbourhood.remove(root);
-
-        return neighbourhood;
+        return boundedBfs.getNodes();
     }
 }
\ No newline at end of file
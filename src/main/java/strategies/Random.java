@@ -1,9 +1,10 @@
 package strategies;
 
-import org.gephi.graph.api.Edge;
+import metrics.Metric;
 import org.gephi.graph.api.Node;
 
 import java.awt.*;
+import java.util.EnumSet;
 
 /**
  * This algorithm uses selects nodes at random then creates an edge between the newcomer and the randomly selected node.
@@ -15,6 +16,11 @@ public class Random extends Strategy {
         super(graphFilePath, outputFilePath, edgeLimit, updateEveryRound, visualise, export);
     }
 
+    @Override
+    EnumSet<Metric> getSelectionMetrics() {
+        return EnumSet.noneOf(Metric.class);
+    }
+
     @Override
     public void execute(Node newcomer) {
         int nodeCount = graph.getNodeCount();
@@ -31,8 +37,7 @@ public class Random extends Strategy {
                 try {
                     id = rand.nextInt(nodeCount);
                     selectedNode = graph.getNode("" + id);
-                    Edge edge = graphModel.factory().newEdge(newcomer, selectedNode, 0, 1f, false);
-                    graph.addEdge(edge);
+                    connect(newcomer, selectedNode);
                 } catch (NullPointerException e) {
                     continue;
                 }
@@ -46,7 +51,7 @@ public class Random extends Strategy {
                 selectedNode.setSize(40);
                 selectedNode.setColor(visualizer.getColor(currentIteration -1));
 
-                visualizer.updateView();
+                refreshView();
             }
         }
     }
@@ -1,6 +1,27 @@
 package strategies;
 
-import org.gephi.graph.api.Column;
+import experiment.PhaseTimer;
+import experiment.ResultRow;
+import experiment.ResultSink;
+import metrics.BoundedBfs;
+import metrics.CompactGraph;
+import metrics.DistanceCache;
+import metrics.DistanceMatrix;
+import metrics.DistanceOracle;
+import metrics.DynamicBrandes;
+import metrics.EdgeListReader;
+import metrics.FarthestNodeService;
+import metrics.GraphMLReader;
+import metrics.GraphMetrics;
+import metrics.GraphPool;
+import metrics.GraphSnapshot;
+import metrics.IndexedMaxHeap;
+import metrics.Metric;
+import metrics.MetricEngine;
+import metrics.MetricPlanner;
+import metrics.NewcomerCentralities;
+import metrics.SampledBetweenness;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -12,29 +33,90 @@ import org.gephi.io.importer.plugin.file.ImporterCSV;
 import org.gephi.io.processor.plugin.DefaultProcessor;
 import org.gephi.project.api.ProjectController;
 import org.gephi.project.api.Workspace;
-import org.gephi.statistics.plugin.EigenvectorCentrality;
-import org.gephi.statistics.plugin.GraphDistance;
 import org.openide.util.Lookup;
 import visualization.Visualizer;
 
 import java.awt.*;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-
-import static java.nio.file.StandardOpenOption.APPEND;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.function.IntToDoubleFunction;
 
 
 public abstract class Strategy implements Algorithm {
+    // Maintain the shortest paths of every source between rounds instead of recomputing them after each edge
+    private static final boolean INCREMENTAL_CENTRALITIES = true;
+
+    // Maintain the distance between every pair of nodes when the plan needs distances but not betweenness
+    private static final boolean INCREMENTAL_DISTANCES = true;
+
+    // Select the node with max betweenness from sampled shortest paths instead of exact betweenness (large graphs)
+    static final boolean APPROXIMATE_BETWEENNESS = false;
+    private static final double APPROXIMATION_ERROR = 0.005;       // Fraction of all pairs of nodes
+    private static final double APPROXIMATION_CONFIDENCE = 0.95;
+
+    // Print the samples and error bound of every approximate selection and the eigenvector iterations of every run,
+    // lines of parallel runs are interleaved
+    private static final boolean PRINT_DIAGNOSTICS = false;
+
+    // Export the newcomer's centralities from cached shortest paths when the strategy doesn't need them for all nodes
+    private static final boolean NEWCOMER_CENTRALITIES = true;
+    private static final int MAX_NEWCOMER_NODES = 10000;   // The cache takes 12 bytes for every pair of nodes
+
+    // Keep the distances of every input graph in a file next to it, for the strategies that search by distance
+    private static final boolean CACHE_DISTANCES = true;
+    private static final int MAX_CACHED_NODES = 50000;     // The file takes a byte for every pair of nodes
+
+    // Load every input graph from a binary snapshot next to it instead of parsing the graph file on every run
+    private static final boolean SNAPSHOT_GRAPHS = true;
+
+    // Keep the snapshots of recently loaded graphs in memory, shared by every strategy that runs on the same graph
+    private static final boolean POOL_GRAPHS = true;
+    private static final GraphPool GRAPH_POOL = new GraphPool(Runtime.getRuntime().maxMemory() / 4);
+    private static final long BYTES_PER_NODE = 2048;    // Heap of a node of the Gephi graph with its edges, roughly
+
+    // Read edge lists and GraphML with streaming readers instead of Gephi's importers when there is no snapshot yet
+    private static final boolean STREAMING_IMPORT = true;
+
+    // Time every phase of a run and every round of its execution, committed as JFR events while recording
+    private static final boolean TIME_PHASES = true;
+
+    // Also write the phases of every run to a CSV under timing/ next to its output file
+    private static final boolean TIMING_CSV = false;
+
+    Workspace workspace;
     GraphModel graphModel;
     Graph graph;
-    GraphDistance distance;
-    EigenvectorCentrality eigenvectorCentrality;
+    CompactGraph compactGraph;
+    BoundedBfs boundedBfs;
+    GraphMetrics metrics;
+    private final MetricEngine metricEngine = new MetricEngine();
+    private MetricPlanner metricPlan;
+    private DynamicBrandes dynamicBrandes;
+    private DistanceMatrix distanceMatrix;
+    private SampledBetweenness sampledBetweenness;
+    private NewcomerCentralities newcomerCentralities;
+    private DistanceCache distanceCache;
+    DistanceOracle distanceOracle;      // Null unless the strategy reads distances and they could be cached
+
+    // Candidates for the next target, keyed by the selection score of the strategy
+    private IndexedMaxHeap candidates;
+    private IntToDoubleFunction candidateScore;
+    private boolean scoreReadsMetrics;
+    private GraphMetrics keyedMetrics;      // Metrics the candidate keys were computed from
     Visualizer visualizer;
+    private final ResultRow resultRow = new ResultRow();     // Row of this run, committed once complete
+    private int resultSlot = -1;
+    private boolean resultCommitted;
+    private GraphSnapshot inputGraph;       // Loaded instead of the graph file if set
+    private Node newcomer;
+    private final PhaseTimer timer;
+    private int round;      // Edges of the newcomer so far, each new edge starts a round
 
     // Settings
     private final String graphFilePath;
@@ -51,29 +133,92 @@ public abstract class Strategy implements Algorithm {
         this.updateEveryRound = updateEveryRound;
         this.visualise = visualise;
         this.export = export;
+
+        timer = new PhaseTimer(TIME_PHASES, TIMING_CSV, getClass().getSimpleName(), getGraphName());
+    }
+
+    /**
+     * Set the position of this run's row in the output file, so that runs that share the file and finish in any
+     * order write their rows in a fixed order
+     * @param slot: position of the row from 0, each slot of a file is used by a single run
+     */
+    public void setResultSlot(int slot) {
+        resultSlot = slot;
+    }
+
+    /**
+     * @return true once the row of this run was handed to its ResultSink, false if the run failed before that
+     */
+    public boolean isResultCommitted() {
+        return resultCommitted;
+    }
+
+    /**
+     * Run on the given graph instead of loading the graph file, e.g. a graph generated for a benchmark.
+     * The graph file path still names the graph in the output, and the distances aren't cached.
+     * @param snapshot: the input graph, which is shared and not modified
+     */
+    public void setGraph(GraphSnapshot snapshot) {
+        inputGraph = snapshot;
     }
 
     public void start() {
         ProjectController pc = Lookup.getDefault().lookup(ProjectController.class);
         pc.newProject();
-        Workspace workspace = pc.getCurrentWorkspace();
 
-        graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        start(pc.getCurrentWorkspace());
+    }
+
+    /**
+     * Run the strategy in the given workspace, which only this strategy uses, so that several strategies can run
+     * at the same time in workspaces of the same project
+     * @param workspace: an empty workspace that the graph will be imported into
+     */
+    public void start(Workspace workspace) {
+        prepare(workspace);
+        run();
+    }
+
+    /**
+     * Import the graph, compute its initial metrics and add the newcomer, everything the strategy needs to execute
+     * @param workspace: an empty workspace that the graph will be imported into
+     */
+    public void prepare(Workspace workspace) {
+        this.workspace = workspace;
+
+        graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel(workspace);
         graph = graphModel.getUndirectedGraph();
 
         // Generate graph
-        importGraph(workspace, graphFilePath);
+        timer.begin("importGraph", 0);
+        compactGraph = loadGraph(workspace);
+        boundedBfs = new BoundedBfs(compactGraph);
+        timer.setSize(compactGraph.getNodeCount());
+        timer.end();
 
         System.out.println("Successfully imported graph: " + graphFilePath + " for: " + this.getClass());
 
+        if (CACHE_DISTANCES && readsDistances() && inputGraph == null &&
+                compactGraph.getNodeCount() <= MAX_CACHED_NODES) {
+            timer.begin("openDistanceCache", 0);
+            distanceCache = openDistanceCache();
+            timer.end();
+        }
+
         // Set up visualization if enabled
         if (visualise) {
             System.out.println("Start setting up view");
+            timer.begin("setUpView", 0);
             visualizer = new Visualizer(graph, edgeLimit, graphFilePath, outputFilePath);
             visualizer.setUpView();
+            timer.end();
         }
 
-        System.out.println("Calculating initial metrics for graph...");
+        // Only compute the metrics that the strategy and the export read
+        boolean newcomerOnly = exportsNewcomerOnly(compactGraph.getNodeCount());
+        metricPlan = planMetrics(compactGraph.getNodeCount());
+
+        System.out.println("Calculating initial metrics for graph: " + metricPlan);
 
         updateCentralities();
 
@@ -81,10 +226,15 @@ public abstract class Strategy implements Algorithm {
             exportGraphMetrics(true);
         }
 
-        System.out.println("Algorithm has started executing");
+        // Every later edge touches the newcomer, so the shortest paths of the graph as it is now can be cached
+        if (newcomerOnly) {
+            timer.begin("cacheShortestPaths", 0);
+            newcomerCentralities = new NewcomerCentralities(compactGraph);
+            timer.end();
+        }
 
         // Create new node as newcomer
-        Node newcomer = graphModel.factory().newNode("Newcomer");
+        newcomer = graphModel.factory().newNode("Newcomer");
         newcomer.setLabel("Newcomer");
 
         // Set size and colour for newcomer
@@ -94,29 +244,410 @@ public abstract class Strategy implements Algorithm {
         }
 
         graph.addNode(newcomer);
+        compactGraph.addNode(newcomer);
+
+        if (distanceCache != null) {
+            distanceOracle = new DistanceOracle(distanceCache, compactGraph.indexOf(newcomer));
+        }
+    }
+
+    /**
+     * The newcomer's centralities can be exported on their own unless the strategy reads every node's betweenness
+     * @return true if the newcomer's centralities are exported from cached shortest paths
+     */
+    private boolean exportsNewcomerOnly(int nodeCount) {
+        return NEWCOMER_CENTRALITIES && export && updateEveryRound &&
+                !new MetricPlanner(getSelectionMetrics()).needsDependencies() && nodeCount <= MAX_NEWCOMER_NODES;
+    }
+
+    /**
+     * @return the metrics that the strategy and the export read, on a graph of the given number of nodes
+     */
+    private MetricPlanner planMetrics(int nodeCount) {
+        EnumSet<Metric> requiredMetrics = getSelectionMetrics();
+
+        if (exportsNewcomerOnly(nodeCount)) {
+            requiredMetrics.add(Metric.EIGENVECTOR);
+        } else if (export) {
+            requiredMetrics.addAll(getExportMetrics());
+        }
+
+        return new MetricPlanner(requiredMetrics);
+    }
+
+    /**
+     * Above DynamicBrandes.MAX_NODES, the engines that keep every pair of nodes between rounds don't fit in memory
+     * and a pass over every pair every round takes hours, so only runs that need no such pass are feasible
+     * @return false if the run computes betweenness or distances, for the selection or the export, on a graph that
+     * is too large for them
+     */
+    public boolean isFeasible(int nodeCount) {
+        return nodeCount <= DynamicBrandes.MAX_NODES || !planMetrics(nodeCount).needsDistances();
+    }
+
+    /**
+     * Estimate the heap a run on a graph of the given size takes at most: the graph, its compact copy, and the
+     * shortest paths of every pair of nodes that the incremental engines keep between rounds
+     * @param nodeCount: number of nodes of the input graph
+     * @return the estimated number of bytes
+     */
+    public long estimateMemory(int nodeCount) {
+        long pairs = (long) (nodeCount + 1) * (nodeCount + 1);      // The newcomer is added to the graph
+        long bytes = BYTES_PER_NODE * nodeCount;
+        MetricPlanner plan = planMetrics(nodeCount);
+
+        if (INCREMENTAL_CENTRALITIES && updateEveryRound && plan.needsDependencies() &&
+                nodeCount <= DynamicBrandes.MAX_NODES) {
+            bytes += 12 * pairs;
+        } else if (INCREMENTAL_DISTANCES && updateEveryRound && plan.needsDistances() &&
+                nodeCount <= DistanceMatrix.MAX_NODES) {
+            bytes += 4 * pairs;
+        }
+        if (exportsNewcomerOnly(nodeCount)) {
+            bytes += 12 * pairs;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Execute the strategy on the prepared graph and export the final metrics
+     */
+    public void run() {
+        System.out.println("Algorithm has started executing");
 
         // Begin algorithm
+        timer.begin("execute", 0);
         execute(newcomer);
+        if (round > 0) timer.end();     // The last round ends with the execution
+        timer.end();
+
+        if (PRINT_DIAGNOSTICS) {
+            System.out.println("Eigenvector iterations per update: " +
+                    Arrays.toString(metricEngine.getEigenvectorIterations()));
+        }
 
         System.out.println("Calculating final metrics for graph...");
 
         if (export) {
             exportGraphMetrics(false);
         }
+
+        if (TIMING_CSV) {
+            writeTiming();
+        }
     }
 
     /**
-     * Update values for centralities as well as other commonly used metrics
+     * @return the metrics that this strategy reads to select its targets
+     */
+    abstract EnumSet<Metric> getSelectionMetrics();
+
+    /**
+     * @return the metrics written by exportGraphMetrics and exportCentralities
+     */
+    EnumSet<Metric> getExportMetrics() {
+        return EnumSet.of(Metric.PATH_LENGTH, Metric.DIAMETER, Metric.RADIUS,
+                Metric.BETWEENNESS, Metric.CLOSENESS, Metric.ECCENTRICITY, Metric.EIGENVECTOR);
+    }
+
+    /**
+     * @return true if the strategy searches the graph by distance, so the distances of the input graph get cached
+     */
+    boolean readsDistances() {
+        return false;
+    }
+
+    /**
+     * Map the distances of the input graph from the file next to it, writing the file on the first run
+     * @return the cached distances, or null if they can't be cached
+     */
+    private DistanceCache openDistanceCache() {
+        try {
+            Path graphFile = getGraphFile();
+            return DistanceCache.open(compactGraph, graphFile.resolveSibling(graphFile.getFileName() + ".dist"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Update values for centralities as well as other commonly used metrics.
+     * Only the metrics planned in start() are computed, the others read as 0.
      */
     void updateCentralities() {
-        eigenvectorCentrality = new EigenvectorCentrality();
-        eigenvectorCentrality.setDirected(false);
-        eigenvectorCentrality.execute(graph);
+        timer.begin("updateCentralities", round);
+
+        // The first call computes every shortest path, later calls only read what connect() kept up to date
+        // Graphs that are too large for every shortest path to be kept are recomputed every round instead
+        if (INCREMENTAL_CENTRALITIES && updateEveryRound && metricPlan.needsDependencies() &&
+                (dynamicBrandes != null || compactGraph.getNodeCount() <= DynamicBrandes.MAX_NODES)) {
+            if (dynamicBrandes == null) dynamicBrandes = new DynamicBrandes(compactGraph);
+
+            metrics = dynamicBrandes.getMetrics();
+            if (metricPlan.needsEigenvector()) metricEngine.computeEigenvector(compactGraph, metrics);
+        } else if (INCREMENTAL_DISTANCES && updateEveryRound && metricPlan.needsDistances() &&
+                (distanceMatrix != null || compactGraph.getNodeCount() <= DistanceMatrix.MAX_NODES)) {
+            if (distanceMatrix == null) distanceMatrix = new DistanceMatrix(compactGraph);
+
+            metrics = distanceMatrix.getMetrics();
+            if (metricPlan.needsEigenvector()) metricEngine.computeEigenvector(compactGraph, metrics);
+        } else {
+            metrics = metricEngine.compute(compactGraph, metricPlan);
+        }
+
+        timer.end();
+    }
+
+    /**
+     * Establish an undirected edge between the newcomer and the target, in both the Gephi graph and its compact copy
+     * @param newcomer: the newcomer node
+     * @param target: the node the newcomer connects to
+     */
+    void connect(Node newcomer, Node target) {
+        Edge edge = graphModel.factory().newEdge(newcomer, target, 0, 1f, false);
+        graph.addEdge(edge);
+
+        // The previous round ends with the next edge, once it was added: a target that isn't in the graph throws
+        // above, and strategies such as Random retry with another target in the same round
+        if (round > 0) timer.end();
+        timer.begin("round", ++round);
+
+        if (compactGraph.addEdge(newcomer, target)) {
+            int u = compactGraph.indexOf(newcomer);
+            int v = compactGraph.indexOf(target);
+
+            if (dynamicBrandes != null) dynamicBrandes.edgeAdded(u, v);
+            if (distanceMatrix != null) distanceMatrix.edgeAdded(u, v);
+            if (distanceOracle != null) distanceOracle.edgeAdded(v);
+            edgeAdded(u, v);
+        }
+    }
+
+    /**
+     * Called by connect() for every edge it adds, for a strategy to update what it keeps of the graph
+     * @param u: dense id of the newcomer
+     * @param v: dense id of the target
+     */
+    void edgeAdded(int u, int v) {
+    }
+
+    /**
+     * Keep the candidates for the next target in a heap keyed by their score, so the best one can be found
+     * without scanning them all
+     * @param nodes: the initial candidates
+     * @param score: score of a candidate, by dense id
+     * @param preferLast: true to replace a scan that keeps the last best candidate (>=), false for the first (>)
+     * @param readsMetrics: true if the score changes when the centralities are updated
+     */
+    void initCandidates(Collection<Node> nodes, IntToDoubleFunction score, boolean preferLast, boolean readsMetrics) {
+        candidates = new IndexedMaxHeap(preferLast);
+        candidateScore = score;
+        scoreReadsMetrics = readsMetrics;
+        keyedMetrics = metrics;
+
+        addCandidates(nodes);
+    }
+
+    void addCandidates(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            int id = compactGraph.indexOf(node);
+            candidates.add(id, candidateScore.applyAsDouble(id));
+        }
+    }
+
+    void removeCandidate(Node node) {
+        candidates.remove(compactGraph.indexOf(node));
+    }
+
+    void removeCandidates(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            removeCandidate(node);
+        }
+    }
+
+    /**
+     * @return the candidate with the highest score, or null if there are no candidates left
+     */
+    Node getBestCandidate() {
+        // Every score changes when the centralities are updated, so all keys are recomputed at once
+        if (scoreReadsMetrics && keyedMetrics != metrics) {
+            candidates.rekey(candidateScore);
+            keyedMetrics = metrics;
+        }
+
+        int best = candidates.peek();
+        return best >= 0 ? compactGraph.getNode(best) : null;
+    }
+
+    /**
+     * Find the candidate with the highest betweenness, the last one wins in case of a tie.
+     * Betweenness is estimated by sampling if APPROXIMATE_BETWEENNESS is enabled.
+     * @param candidates: the nodes to choose from
+     * @return the selected node, or null if there are no candidates
+     */
+    Node getMaxBetweennessNode(Collection<Node> candidates) {
+        if (APPROXIMATE_BETWEENNESS) {
+            return getSampledMaxBetweennessNode(candidates);
+        }
+
+        Node selectedNode = null;
+        double maxCentrality = 0.0;
+
+        for (Node n : candidates) {
+            double centrality = getBetweenness(n);
+
+            if (centrality >= maxCentrality) {
+                selectedNode = n;
+                maxCentrality = centrality;
+            }
+        }
+
+        return selectedNode;
+    }
+
+    /**
+     * Estimate the candidate with the highest betweenness by adaptive path sampling,
+     * and report the error bound that was achieved
+     */
+    Node getSampledMaxBetweennessNode(Collection<Node> candidates) {
+        if (sampledBetweenness == null) {
+            sampledBetweenness = new SampledBetweenness(compactGraph, APPROXIMATION_ERROR, APPROXIMATION_CONFIDENCE,
+                    graphFilePath.hashCode());
+        }
+
+        int[] ids = new int[candidates.size()];
+        int count = 0;
+        for (Node n : candidates) {
+            ids[count++] = compactGraph.indexOf(n);
+        }
+
+        int selected = sampledBetweenness.selectTop(ids, count);
+
+        if (PRINT_DIAGNOSTICS) {
+            System.out.println("Sampled betweenness of " + count + " candidates: " +
+                    sampledBetweenness.getSamples() + " samples, error bound " + sampledBetweenness.getErrorBound() +
+                    (sampledBetweenness.isRankingCertain() ? ", ranking certain" : ""));
+        }
+
+        return selected >= 0 ? compactGraph.getNode(selected) : null;
+    }
+
+    /**
+     * The exact radius needs the distances between every pair of nodes, so it is estimated by a double sweep from
+     * the first node if APPROXIMATE_BETWEENNESS is enabled. The estimate is never below the radius.
+     * @return radius of the graph
+     */
+    int getRadius() {
+        if (APPROXIMATE_BETWEENNESS) {
+            return new FarthestNodeService(compactGraph).estimateRadius(0);
+        }
 
-        distance = new GraphDistance();
-        distance.setDirected(false);
-        distance.setNormalized(true);
-        distance.execute(graph);
+        return (int) metrics.getRadius();
+    }
+
+    /**
+     * @return betweenness of the node from the last computed metrics
+     */
+    double getBetweenness(Node node) {
+        return metrics.getBetweenness(compactGraph.indexOf(node));
+    }
+
+    /**
+     * Update the view after the graph changed, timed as part of the round
+     */
+    void refreshView() {
+        timer.begin("updateView", round);
+        visualizer.updateView();
+        timer.end();
+    }
+
+    /**
+     * @return name of the graph file without its directory and extension, e.g. ba_250_01
+     */
+    private String getGraphName() {
+        int first = graphFilePath.lastIndexOf('/');
+        int last = graphFilePath.indexOf('.');
+        return graphFilePath.substring(first +1, last);
+    }
+
+    private Path getGraphFile() throws URISyntaxException {
+        return Paths.get(getClass().getResource(graphFilePath).toURI());
+    }
+
+    /**
+     * Load the graph from its snapshot, or import it from the graph file and write the snapshot for the next runs
+     * @param workspace: current workspace for this project
+     * @return the CompactGraph of the loaded graph
+     */
+    private CompactGraph loadGraph(Workspace workspace) {
+        if (inputGraph != null) {
+            return inputGraph.load(graphModel);
+        }
+
+        if (!SNAPSHOT_GRAPHS) {
+            importGraph(workspace, graphFilePath);
+            return new CompactGraph(graph);
+        }
+
+        GraphSnapshot snapshot = null;
+
+        try {
+            // A generated graph file is a snapshot already
+            Path graphFile = getGraphFile();
+            Path snapshotFile = graphFilePath.endsWith(".csr") ? graphFile :
+                    graphFile.resolveSibling(graphFile.getFileName() + ".csr");
+            GraphPool.Loader loader = () -> readSnapshot(workspace, graphFile, snapshotFile);
+
+            snapshot = POOL_GRAPHS ? GRAPH_POOL.get(graphFile, loader) : loader.load();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        if (snapshot == null) {
+            graph.clear();
+            importGraph(workspace, graphFilePath);
+            return new CompactGraph(graph);
+        }
+
+        return snapshot.load(graphModel);
+    }
+
+    /**
+     * Read the snapshot of the graph file, or import the graph file and take its snapshot if there is none
+     * @param workspace: current workspace for this project, left empty
+     * @return the snapshot of the graph
+     */
+    private GraphSnapshot readSnapshot(Workspace workspace, Path graphFile, Path snapshotFile) throws IOException {
+        if (snapshotFile.equals(graphFile)) {
+            GraphSnapshot snapshot = GraphSnapshot.open(graphFile, null);
+            if (snapshot == null) throw new IOException("Invalid graph snapshot: " + graphFile);
+            return snapshot;
+        }
+
+        GraphSnapshot snapshot = GraphSnapshot.open(snapshotFile, graphFile);
+        if (snapshot != null) return snapshot;
+
+        if (STREAMING_IMPORT && graphFilePath.endsWith(".txt")) {
+            snapshot = EdgeListReader.read(graphFile);
+        } else if (STREAMING_IMPORT && graphFilePath.endsWith(".graphml")) {
+            snapshot = GraphMLReader.read(graphFile);
+        } else {
+            importGraph(workspace, graphFilePath);
+            if (graph.getNodeCount() == 0) throw new IOException("Graph couldn't be imported: " + graphFile);
+
+            snapshot = GraphSnapshot.of(graph, new CompactGraph(graph));
+            graph.clear();      // The graph is loaded from the snapshot like in every other run
+        }
+
+        try {
+            snapshot.write(snapshotFile, graphFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return snapshot;
     }
 
     /**
@@ -152,25 +683,39 @@ public abstract class Strategy implements Algorithm {
      * @param initialMetrics: true if exporting initial metric of the graph before it got updated
      */
     private void exportGraphMetrics(boolean initialMetrics) {
-        int first = graphFilePath.lastIndexOf('/');
-        int last = graphFilePath.indexOf('.');
-        String firstCell = graphFilePath.substring(first +1, last);
-
-        String csvString = "";
-        if (initialMetrics) csvString += firstCell;
+        timer.begin("exportGraphMetrics", round);
+        String firstCell = getGraphName();
+
+        // Graph metrics aren't updated every round when the plan doesn't need the distances
+        GraphMetrics graphMetrics = metrics;
+        if (!metricPlan.needsDistances() && (initialMetrics || updateEveryRound)) {
+            graphMetrics = metricEngine.compute(compactGraph,
+                    new MetricPlanner(EnumSet.of(Metric.PATH_LENGTH, Metric.DIAMETER, Metric.RADIUS)));
+        }
 
-        csvString += "," + distance.getPathLength() + "," + distance.getDiameter() + "," + distance.getRadius();
+        if (initialMetrics) resultRow.text(firstCell);
 
-        if (!initialMetrics) csvString += "\n";
+        resultRow.cell(graphMetrics.getPathLength()).cell(graphMetrics.getDiameter()).cell(graphMetrics.getRadius());
 
-        byte[] csvData = csvString.getBytes();
+        if (!initialMetrics) commitResultRow();
 
-        Path path = Paths.get(outputFilePath);
+        timer.end();
+    }
 
-        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path, APPEND))) {
-            out.write(csvData, 0, csvData.length);
+    /**
+     * Hand the complete row of this run to the sink of the output file
+     */
+    private void commitResultRow() {
+        try {
+            ResultSink sink = ResultSink.get(outputFilePath);
+            resultCommitted = true;
+            if (resultSlot >= 0) {
+                sink.commit(resultSlot, resultRow);
+            } else {
+                sink.append(resultRow);
+            }
         } catch (IOException e) {
-            e.getStackTrace();
+            e.printStackTrace();
         }
     }
 
@@ -179,22 +724,35 @@ public abstract class Strategy implements Algorithm {
      * @param newcomer: the newcomer node that we will be exporting the centralities from
      */
     void exportCentralities(Node newcomer) {
-        Column betweenness = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
-        Column closeness = graphModel.getNodeTable().getColumn(GraphDistance.CLOSENESS);
-        Column eccentricity = graphModel.getNodeTable().getColumn(GraphDistance.ECCENTRICITY);
-        Column eigenvector = graphModel.getNodeTable().getColumn(EigenvectorCentrality.EIGENVECTOR);
+        timer.begin("exportCentralities", round);
+
+        int id = compactGraph.indexOf(newcomer);
+        double betweenness = metrics.getBetweenness(id);
+        double closeness = metrics.getCloseness(id);
+        double eccentricity = metrics.getEccentricity(id);
+
+        if (newcomerCentralities != null) {
+            newcomerCentralities.compute(id);
+            betweenness = newcomerCentralities.getBetweenness();
+            closeness = newcomerCentralities.getCloseness();
+            eccentricity = newcomerCentralities.getEccentricity();
+        }
 
-        String csvString = "," + newcomer.getAttribute(betweenness) + "," + newcomer.getAttribute(closeness) + "," +
-                newcomer.getAttribute(eccentricity) + "," + newcomer.getAttribute(eigenvector);
+        resultRow.cell(betweenness).cell(closeness).cell(eccentricity).cell(metrics.getEigenvector(id));
 
-        byte[] csvData = csvString.getBytes();
+        timer.end();
+    }
 
-        Path path = Paths.get(outputFilePath);
+    /**
+     * Write the phases of this run to a CSV under timing/ next to the output file, named after the graph
+     */
+    private void writeTiming() {
+        if (outputFilePath == null) return;
 
-        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path, APPEND))) {
-            out.write(csvData, 0, csvData.length);
+        try {
+            timer.writeCsv(Paths.get(outputFilePath).resolveSibling("timing").resolve(getGraphName() + ".csv"));
         } catch (IOException e) {
-            e.getStackTrace();
+            e.printStackTrace();
         }
     }
 }
@@ -1,11 +1,10 @@
 package visualization;
 
-import org.gephi.graph.api.Column;
+import metrics.CompactGraph;
+import metrics.GraphMetrics;
+import metrics.MetricEngine;
 import org.gephi.graph.api.Graph;
-import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Node;
-import org.gephi.statistics.plugin.EigenvectorCentrality;
-import org.gephi.statistics.plugin.GraphDistance;
 
 import java.awt.*;
 import java.util.HashMap;
@@ -22,7 +21,9 @@ public class CentralityPresenter {
     private double minBetweenness, minCloseness, minEccentricity, minEigenvector, minDegree;
     private double rangeBetweenness, rangeCloseness, rangeEccentricity, rangeEigenvector, rangeDegree;
 
-    private Column betweenness, closeness, eccentricity, eigenvector;
+    private final MetricEngine metricEngine = new MetricEngine();
+    private CompactGraph compactGraph;
+    private GraphMetrics metrics;
 
     private static final String BETWEENNESS = "betweenness";
     private static final String CLOSENESS = "closeness";
@@ -43,28 +44,15 @@ public class CentralityPresenter {
      * Organise the Visualiser to paint the nodes pending on their centralities.
      */
     public void present() {
-        GraphModel graphModel = graph.getModel();
-
         // Remember what the color of each node is.
         HashMap<Node,Color> nodes = new HashMap<>();
         for (Node node : graph.getNodes().toCollection()) {
             nodes.put(node,node.getColor());
         }
 
-        // Paint each node depending on its centrality
-        GraphDistance distance = new GraphDistance();
-        distance.setDirected(false);
-        distance.setNormalized(true);
-        distance.execute(graph);
-
-        EigenvectorCentrality eigenvectorCentrality = new EigenvectorCentrality();
-        eigenvectorCentrality.setDirected(false);
-        eigenvectorCentrality.execute(graph);
-
-        betweenness = graphModel.getNodeTable().getColumn(GraphDistance.BETWEENNESS);
-        closeness = graphModel.getNodeTable().getColumn(GraphDistance.CLOSENESS);
-        eccentricity = graphModel.getNodeTable().getColumn(GraphDistance.ECCENTRICITY);
-        eigenvector = graphModel.getNodeTable().getColumn(EigenvectorCentrality.EIGENVECTOR);
+        // Paint each node depending on its centrality, computed in parallel on a compact copy of the graph
+        compactGraph = new CompactGraph(graph);
+        metrics = metricEngine.compute(compactGraph);
 
         resetExtrema();
         findExtrema();
@@ -101,10 +89,11 @@ public class CentralityPresenter {
 
     private void findExtrema() {
         for (Node node : graph.getNodes().toCollection()) {
-            double nodeBetweenness = (Double) node.getAttribute(betweenness);
-            double nodeCloseness = (Double) node.getAttribute(closeness);
-            double nodeEccentricity = (Double) node.getAttribute(eccentricity);
-            double nodeEigenvector = (Double) node.getAttribute(eigenvector);
+            int id = compactGraph.indexOf(node);
+            double nodeBetweenness = metrics.getBetweenness(id);
+            double nodeCloseness = metrics.getCloseness(id);
+            double nodeEccentricity = metrics.getEccentricity(id);
+            double nodeEigenvector = metrics.getEigenvector(id);
             double nodeDegree = graph.getDegree(node);
 
             if (nodeBetweenness > maxBetweenness) maxBetweenness = nodeBetweenness;
@@ -145,27 +134,28 @@ public class CentralityPresenter {
     }
     
     private void paintAbsoluteRange(String centralityType, Node node) {
+        int id = compactGraph.indexOf(node);
         float numerator, denominator;
         switch (centralityType) {
             case CENTRALITY_SCORE:
-                numerator = ((Double) ((Double) node.getAttribute(betweenness)
-                                        + (Double) node.getAttribute(closeness)
-                                        + (Double) node.getAttribute(eigenvector))).floatValue();
+                numerator = (float) (metrics.getBetweenness(id)
+                                        + metrics.getCloseness(id)
+                                        + metrics.getEigenvector(id));
                 denominator = 3.3f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case BETWEENNESS:
-                numerator = ((Double) node.getAttribute(betweenness)).floatValue();
+                numerator = (float) metrics.getBetweenness(id);
                 denominator = 1.1f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case CLOSENESS:
-                numerator = ((Double) node.getAttribute(closeness)).floatValue();
+                numerator = (float) metrics.getCloseness(id);
                 denominator = 1.1f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case EIGENVECTOR:
-                numerator = ((Double) node.getAttribute(eigenvector)).floatValue();
+                numerator = (float) metrics.getEigenvector(id);
                 denominator = 1.1f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
@@ -175,7 +165,7 @@ public class CentralityPresenter {
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case ECCENTRICITY:
-                numerator = ((Double) node.getAttribute(eccentricity)).floatValue();
+                numerator = (float) metrics.getEccentricity(id);
                 denominator = (float) (originalMaxEccentricity + 1.0f);
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
@@ -183,27 +173,28 @@ public class CentralityPresenter {
     }
 
     private void paintRelativeRange(String centralityType, Node node) {
+        int id = compactGraph.indexOf(node);
         float numerator, denominator;
         switch (centralityType) {
             case CENTRALITY_SCORE:
-                numerator = ((Double) ((Double) node.getAttribute(betweenness) - minBetweenness
-                                        + (Double) node.getAttribute(closeness) - minCloseness
-                                        + (Double) node.getAttribute(eigenvector) - minEigenvector)).floatValue();
+                numerator = (float) (metrics.getBetweenness(id) - minBetweenness
+                                        + metrics.getCloseness(id) - minCloseness
+                                        + metrics.getEigenvector(id) - minEigenvector);
                 denominator = (float) (rangeBetweenness + rangeCloseness + rangeEigenvector + 0.3);
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case BETWEENNESS:
-                numerator = ((Double) node.getAttribute(betweenness)).floatValue() - (float) minBetweenness;
+                numerator = (float) metrics.getBetweenness(id) - (float) minBetweenness;
                 denominator = (float) rangeBetweenness + (float) rangeBetweenness / 4;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case CLOSENESS:
-                numerator = ((Double) node.getAttribute(closeness)).floatValue() - (float) minCloseness;
+                numerator = (float) metrics.getCloseness(id) - (float) minCloseness;
                 denominator = (float) rangeCloseness + 0.1f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case EIGENVECTOR:
-                numerator = ((Double) node.getAttribute(eigenvector)).floatValue() - (float) minEigenvector;
+                numerator = (float) metrics.getEigenvector(id) - (float) minEigenvector;
                 denominator = (float) rangeEigenvector + 0.1f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
@@ -213,7 +204,7 @@ public class CentralityPresenter {
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;
             case ECCENTRICITY:
-                numerator = ((Double) node.getAttribute(eccentricity)).floatValue() - (float) minEccentricity;
+                numerator = (float) metrics.getEccentricity(id) - (float) minEccentricity;
                 denominator = (float) rangeEccentricity + 1.0f;
                 node.setColor(visualizer.getColor(numerator, denominator));
                 break;